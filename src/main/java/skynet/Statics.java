@@ -1,10 +1,22 @@
 package skynet;
 
+import skynet.interactions.LocatorRegistry;
 import skynet.utils.Logger;
 
+/**
+ * Holds the active repository and base uri.
+ * <p>
+ * Both values are confined to the thread that sets them, so scenarios running in parallel in the same JVM do not
+ * overwrite each other's repository. Threads that never set a value (e.g. threads started by a scenario) fall back to
+ * the process-wide default set explicitly through setDefaultRepoName / setDefaultURi, or get null if there is none.
+ * Call clear() at the end of a scenario on pooled threads.
+ * </p>
+ */
 public abstract class Statics {
-    private static String repoName = null;
-    private static String uri = null;
+    private static final ThreadLocal<String> repoName = new ThreadLocal<>();
+    private static final ThreadLocal<String> uri = new ThreadLocal<>();
+    private static volatile String defaultRepoName = null;
+    private static volatile String defaultUri = null;
 
     /**
      * DO NOT DELETE - A parameterless constructor is required!
@@ -16,20 +28,61 @@ public abstract class Statics {
     public Statics () throws Exception {
     }
 
+    /**
+     * Sets the uri of the current thread
+     *
+     * @param url - base uri
+     */
     public static void setURi (String url) {
-        uri = url;
+        uri.set(url);
     }
 
     public static String getUri () {
-        return uri;
+        String url = uri.get();
+        return url != null ? url : defaultUri;
     }
 
     public static String getRepoName () {
-        return repoName;
+        String name = repoName.get();
+        return name != null ? name : defaultRepoName;
     }
 
+    /**
+     * Sets the repository of the current thread
+     *
+     * @param repoName - fully qualified name of the repository class
+     */
     public static void setRepoName (String repoName) {
         Logger.info(String.format("Update: active repository is '%s'", repoName));
-        Statics.repoName = repoName;
+        Statics.repoName.set(repoName);
+        LocatorRegistry.repositoryChanged(repoName);
+    }
+
+    /**
+     * Sets the uri used by threads that did not set their own
+     *
+     * @param url - base uri
+     */
+    public static void setDefaultURi (String url) {
+        defaultUri = url;
+    }
+
+    /**
+     * Sets the repository used by threads that did not set their own
+     *
+     * @param repoName - fully qualified name of the repository class
+     */
+    public static void setDefaultRepoName (String repoName) {
+        Logger.info(String.format("Update: default repository is '%s'", repoName));
+        defaultRepoName = repoName;
+        LocatorRegistry.repositoryChanged(repoName);
+    }
+
+    /**
+     * Clears the repository and uri of the current thread, e.g. at the end of a scenario
+     */
+    public static void clear () {
+        repoName.remove();
+        uri.remove();
     }
 }
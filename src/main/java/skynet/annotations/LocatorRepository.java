@@ -0,0 +1,29 @@
+package skynet.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a repository enum (implementing GenericEnumRepositoryInterface) for which a static locator table is generated
+ * at build time, e.g.
+ * <p>
+ * &#64;LocatorRepository
+ * public enum RepositoryEnum implements GenericEnumRepositoryInterface {
+ *     Frame("id", "selector"), ...
+ * }
+ * </p>
+ * The first two arguments of every constant must be compile-time strings: the locator strategy and the selector.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface LocatorRepository {
+    /**
+     * Fully qualified (binary) name of the repository class set through Statics.setRepoName.
+     * If empty, the enclosing class of the enum is used, or the enum itself if it is a top level type.
+     *
+     * @return - repository name
+     */
+    String repository() default "";
+}
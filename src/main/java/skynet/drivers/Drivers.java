@@ -0,0 +1,86 @@
+package skynet.drivers;
+
+import org.openqa.selenium.WebDriver;
+import skynet.interfaces.DriverProvider;
+import skynet.utils.Logger;
+
+/**
+ * Entry point used by all the interaction classes to get the driver of the calling thread.
+ * <p>
+ * The driver is resolved through the active DriverProvider on every call, so the same JVM can drive one browser per
+ * thread. The provider is thread-bound by default and can be replaced with setProvider().
+ * </p>
+ * <p>
+ * get() returns a lazy handle: no browser is started or leased until the first WebDriver command is sent through it.
+ * </p>
+ */
+public abstract class Drivers {
+    private static final WebDriver lazyDriver = LazyDriver.create();
+    private static volatile DriverProvider provider = new ThreadBoundDriverProvider();
+
+    /**
+     * Gets a handle to the driver of the calling thread.
+     * The real driver is resolved on the first command sent through the handle, not when the handle is obtained.
+     * The handle implements every driver interface, use current() to check what the real driver supports.
+     *
+     * @return - web driver
+     */
+    public static WebDriver get () {
+        return lazyDriver;
+    }
+
+    /**
+     * Gets the real driver of the calling thread, starting or leasing it if needed
+     *
+     * @return - web driver
+     */
+    public static WebDriver current () {
+        WebDriver driver = provider.getDriver();
+        if (driver == null) {
+            throw new IllegalStateException("No driver available for thread: " + Thread.currentThread().getName());
+        }
+        return driver;
+    }
+
+    public static DriverProvider getProvider () {
+        return provider;
+    }
+
+    /**
+     * Replaces the driver provider used by all threads
+     *
+     * @param driverProvider - new driver provider
+     */
+    public static void setProvider (DriverProvider driverProvider) {
+        if (driverProvider == null) {
+            throw new IllegalArgumentException("Driver provider cannot be null");
+        }
+        Logger.info("Update: driver provider is " + driverProvider.getClass().getSimpleName());
+        provider = driverProvider;
+    }
+
+    /**
+     * Binds the provided driver to the current thread.
+     * Works only with the thread-bound provider.
+     *
+     * @param driver - driver to use on the current thread
+     */
+    public static void bind (WebDriver driver) {
+        threadBound().bind(driver);
+    }
+
+    /**
+     * Removes the driver bound to the current thread.
+     * Works only with the thread-bound provider.
+     */
+    public static void unbind () {
+        threadBound().unbind();
+    }
+
+    private static ThreadBoundDriverProvider threadBound () {
+        if (!(provider instanceof ThreadBoundDriverProvider)) {
+            throw new IllegalStateException("Active driver provider is not thread-bound: " + provider.getClass().getName());
+        }
+        return (ThreadBoundDriverProvider) provider;
+    }
+}
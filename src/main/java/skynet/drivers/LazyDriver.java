@@ -0,0 +1,63 @@
+package skynet.drivers;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.interactions.Interactive;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Driver handle that resolves the real driver of the calling thread only when a WebDriver command is issued.
+ * <p>
+ * Holding the handle, or building Actions / waits around it, does not start a browser. Every command is forwarded to
+ * the driver returned by the active provider at the time of the call.
+ * </p>
+ * The handle is shared by all threads, so it implements every interface a driver may support: instanceof checks on it
+ * are always true. Check the driver returned by Drivers.current() instead; calling an interface the real driver does
+ * not implement throws UnsupportedOperationException.
+ */
+final class LazyDriver implements InvocationHandler {
+    private static final Class<?>[] INTERFACES = {WebDriver.class, JavascriptExecutor.class, TakesScreenshot.class,
+            HasCapabilities.class, Interactive.class, WrapsDriver.class};
+
+    private LazyDriver () {
+    }
+
+    static WebDriver create () {
+        return (WebDriver) Proxy.newProxyInstance(LazyDriver.class.getClassLoader(), INTERFACES, new LazyDriver());
+    }
+
+    @Override
+    public Object invoke (Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return args != null && args.length == 1 && proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "LazyDriver";
+            case "getWrappedDriver":
+                return Drivers.current();
+            default:
+                break;
+        }
+
+        WebDriver driver = Drivers.current();
+        if (!method.getDeclaringClass().isInstance(driver)) {
+            throw new UnsupportedOperationException(String.format("Driver %s does not support %s",
+                    driver.getClass().getName(), method.getDeclaringClass().getSimpleName()));
+        }
+
+        try {
+            return method.invoke(driver, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
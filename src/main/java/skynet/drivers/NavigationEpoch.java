@@ -0,0 +1,103 @@
+package skynet.drivers;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks, per thread, whether the current document is known to be ready.
+ * <p>
+ * Every navigation (and every action that may navigate, e.g. a click) starts a new epoch. Once readiness is confirmed
+ * for an epoch, Wait.waitUntilJSReady() skips the readyState roundtrip until the next epoch starts.
+ * </p>
+ * Navigations are only seen on drivers decorated with a NavigationListener, so readiness is cached only for the drivers
+ * returned by track().
+ * <p>
+ * e.g:
+ * Drivers.bind(NavigationEpoch.track(new ChromeDriver()));
+ * </p>
+ */
+public abstract class NavigationEpoch {
+    private static final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+    /**
+     * Drivers returned by track(), compared by identity as decorated drivers forward equals to the original driver
+     */
+    private static final List<WeakReference<WebDriver>> tracked = new ArrayList<>();
+
+    /**
+     * Decorates the driver with a NavigationListener, readiness is then cached for the decorated driver
+     *
+     * @param driver - driver to decorate
+     * @return - decorated driver, to be used in place of the provided one
+     */
+    public static WebDriver track (WebDriver driver) {
+        WebDriver decorated = new EventFiringDecorator(new NavigationListener()).decorate(driver);
+        synchronized (tracked) {
+            tracked.removeIf(reference -> reference.get() == null);
+            tracked.add(new WeakReference<>(decorated));
+        }
+        return decorated;
+    }
+
+    /**
+     * @param driver - driver
+     * @return - true if the driver was returned by track()
+     */
+    public static boolean isTracked (WebDriver driver) {
+        synchronized (tracked) {
+            for (WeakReference<WebDriver> reference : tracked) {
+                if (reference.get() == driver) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new epoch on the current thread: the document may have changed
+     */
+    public static void invalidate () {
+        state.get().epoch++;
+    }
+
+    /**
+     * @param driver - driver of the current thread
+     * @return - true if readiness was already confirmed for the current epoch of this driver
+     */
+    public static boolean isReady (WebDriver driver) {
+        State current = state.get();
+        return current.tracked && current.readyEpoch == current.epoch && current.driver.get() == driver;
+    }
+
+    /**
+     * Records that the document of the current epoch is ready
+     *
+     * @param driver - driver of the current thread
+     */
+    public static void markReady (WebDriver driver) {
+        State current = state.get();
+        if (current.driver.get() != driver) {
+            current.driver = new WeakReference<>(driver);
+            current.tracked = isTracked(driver);
+        }
+        current.readyEpoch = current.epoch;
+    }
+
+    /**
+     * @return - epoch of the current thread
+     */
+    public static long getEpoch () {
+        return state.get().epoch;
+    }
+
+    private static final class State {
+        private WeakReference<WebDriver> driver = new WeakReference<>(null);
+        private long epoch = 0;
+        private boolean tracked = false;
+        private long readyEpoch = -1;
+    }
+}
@@ -0,0 +1,90 @@
+package skynet.drivers;
+
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Sequence;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collection;
+
+/**
+ * Starts a new NavigationEpoch whenever the driver navigates or performs an action that may navigate:
+ * get, navigate to/back/forward/refresh, window and frame switches, clicks, submits, action sequences and ENTER/RETURN
+ * keys.
+ */
+public class NavigationListener implements WebDriverListener {
+    @Override
+    public void afterGet (WebDriver driver, String url) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterTo (WebDriver.Navigation navigation, String url) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterTo (WebDriver.Navigation navigation, URL url) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterBack (WebDriver.Navigation navigation) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterForward (WebDriver.Navigation navigation) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterRefresh (WebDriver.Navigation navigation) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterClose (WebDriver driver) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterAnyCall (Object target, Method method, Object[] args, Object result) {
+        if (target instanceof WebDriver.TargetLocator) {
+            NavigationEpoch.invalidate();
+        }
+    }
+
+    @Override
+    public void afterClick (WebElement element) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterSubmit (WebElement element) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterPerform (WebDriver driver, Collection<Sequence> actions) {
+        NavigationEpoch.invalidate();
+    }
+
+    @Override
+    public void afterSendKeys (WebElement element, CharSequence... keysToSend) {
+        if (keysToSend == null) {
+            return;
+        }
+
+        for (CharSequence keys : keysToSend) {
+            String text = String.valueOf(keys);
+            if (text.indexOf(Keys.ENTER.charAt(0)) >= 0 || text.indexOf(Keys.RETURN.charAt(0)) >= 0) {
+                NavigationEpoch.invalidate();
+                return;
+            }
+        }
+    }
+}
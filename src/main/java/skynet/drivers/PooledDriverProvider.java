@@ -0,0 +1,54 @@
+package skynet.drivers;
+
+import org.openqa.selenium.WebDriver;
+import skynet.interfaces.DriverProvider;
+
+import java.time.Duration;
+
+/**
+ * Driver provider that leases a session from a SessionPool the first time a thread needs a driver.
+ * The thread keeps the session until release() is called, e.g. at the end of the scenario.
+ * <p>
+ * e.g:
+ * Drivers.setProvider(new PooledDriverProvider(new SessionPool(ChromeDriver::new, 4).start()));
+ * </p>
+ */
+public class PooledDriverProvider implements DriverProvider {
+    private final SessionPool pool;
+    private final Duration leaseTimeout;
+    private final ThreadLocal<WebDriver> leased = new ThreadLocal<>();
+
+    public PooledDriverProvider (SessionPool pool) {
+        this(pool, Duration.ofSeconds(60));
+    }
+
+    public PooledDriverProvider (SessionPool pool, Duration leaseTimeout) {
+        this.pool = pool;
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    @Override
+    public WebDriver getDriver () {
+        WebDriver driver = leased.get();
+        if (driver == null) {
+            driver = pool.lease(leaseTimeout);
+            leased.set(driver);
+        }
+        return driver;
+    }
+
+    /**
+     * Returns the session leased by the current thread to the pool
+     */
+    public void release () {
+        WebDriver driver = leased.get();
+        if (driver != null) {
+            leased.remove();
+            pool.release(driver);
+        }
+    }
+
+    public SessionPool getPool () {
+        return pool;
+    }
+}
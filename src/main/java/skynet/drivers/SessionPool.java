@@ -0,0 +1,332 @@
+package skynet.drivers;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import skynet.utils.Logger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool of warm browser sessions.
+ * <p>
+ * Sessions are launched in the background through the provided factory, leased to scenarios and, when returned,
+ * reset (extra windows closed, cookies and web storage cleared, about:blank loaded) instead of being quit.
+ * Sessions that fail the health check or the reset are quit and replaced.
+ * </p>
+ * Chromium sessions are cleared browser wide through CDP: all the cookies, and the storage of every origin in the
+ * history of the windows. Other drivers clear the cookies and storage of the documents open when the session is
+ * returned, then a new tab replaces all the windows so the history and session storage start empty.
+ * <p>
+ * Failed launches are retried with an exponential backoff.
+ * </p>
+ * The factory can return any WebDriver implementation, so the pool can also run against a local stand-in driver.
+ */
+public class SessionPool implements AutoCloseable {
+    private static final String CLEAR_STORAGE = "try { window.localStorage.clear(); } catch (e) {}" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+    private static final int LAUNCH_ATTEMPTS = 5;
+    private static final long LAUNCH_BACKOFF_MS = 1000;
+
+    private final Supplier<WebDriver> factory;
+    private final int size;
+    private final BlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Set<WebDriver> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final ExecutorService launcher;
+    private volatile boolean closed = false;
+
+    /**
+     * @param factory - creates a new browser session
+     * @param size    - number of sessions kept by the pool
+     */
+    public SessionPool (Supplier<WebDriver> factory, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Session pool size must be greater than 0");
+        }
+
+        this.factory = factory;
+        this.size = size;
+        AtomicInteger threads = new AtomicInteger();
+        this.launcher = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "skynet-session-launcher-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts launching all the sessions in the background
+     *
+     * @return - this pool
+     */
+    public SessionPool start () {
+        fill();
+        return this;
+    }
+
+    /**
+     * Leases a healthy session, waiting for one to become available within the provided timeout
+     *
+     * @param timeout - time to wait for a session
+     * @return - leased session
+     * @throws TimeoutException - if no session becomes available within the timeout
+     */
+    public WebDriver lease (Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        fill();
+
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Session pool is closed");
+            }
+
+            WebDriver driver;
+            try {
+                driver = idle.pollFirst(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+            }
+
+            if (driver == null) {
+                throw new TimeoutException(String.format("No browser session available within %d milliseconds " +
+                        "(%d idle, %d leased)", timeout.toMillis(), getIdleCount(), getLeasedCount()));
+            }
+
+            if (isHealthy(driver)) {
+                leased.add(driver);
+                return driver;
+            }
+
+            Logger.warn("Evicting unhealthy browser session: " + driver);
+            evict(driver);
+        }
+    }
+
+    /**
+     * Returns a leased session to the pool.
+     * The session is reset, or quit and replaced if it can not be reset.
+     *
+     * @param driver - session to return
+     */
+    public void release (WebDriver driver) {
+        if (driver == null || !leased.remove(driver)) {
+            Logger.warn("Trying to release a session that is not leased from this pool: " + driver);
+            return;
+        }
+
+        if (closed) {
+            quit(driver);
+            return;
+        }
+
+        try {
+            reset(driver);
+            idle.offerFirst(driver);
+        } catch (WebDriverException e) {
+            Logger.warn("Unable to reset browser session, evicting it: " + e.getMessage());
+            evict(driver);
+        }
+    }
+
+    public int getIdleCount () {
+        return idle.size();
+    }
+
+    public int getLeasedCount () {
+        return leased.size();
+    }
+
+    public int getSize () {
+        return size;
+    }
+
+    /**
+     * Quits all the sessions, leased or not
+     */
+    @Override
+    public void close () {
+        closed = true;
+        launcher.shutdownNow();
+
+        List<WebDriver> drivers = new ArrayList<>(leased);
+        leased.clear();
+        idle.drainTo(drivers);
+        drivers.forEach(this::quit);
+    }
+
+    /**
+     * Clears the state a scenario may have left in the session
+     *
+     * @param driver - session to reset
+     * @throws WebDriverException - if the session can not be fully cleared
+     */
+    private void reset (WebDriver driver) {
+        boolean cdp = driver instanceof ChromiumDriver;
+        Set<String> origins = new HashSet<>();
+        Set<String> handles = driver.getWindowHandles();
+        Iterator<String> iterator = handles.iterator();
+        String main = iterator.next();
+        while (iterator.hasNext()) {
+            driver.switchTo().window(iterator.next());
+            clearWindow(driver, cdp, origins);
+            driver.close();
+        }
+        driver.switchTo().window(main);
+        clearWindow(driver, cdp, origins);
+
+        if (!cdp) {
+            //a new tab drops the history and session storage of the old one
+            driver.switchTo().newWindow(WindowType.TAB);
+            String fresh = driver.getWindowHandle();
+            driver.switchTo().window(main).close();
+            driver.switchTo().window(fresh);
+            return;
+        }
+
+        ChromiumDriver chromium = (ChromiumDriver) driver;
+        chromium.executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+        for (String origin : origins) {
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("origin", origin);
+            parameters.put("storageTypes", "all");
+            chromium.executeCdpCommand("Storage.clearDataForOrigin", parameters);
+        }
+        driver.get("about:blank");
+    }
+
+    /**
+     * Clears the cookies and web storage of the document open in the current window, and collects the origins of the
+     * window history when CDP is available
+     */
+    @SuppressWarnings(value = "unchecked")
+    private void clearWindow (WebDriver driver, boolean cdp, Set<String> origins) {
+        if (driver instanceof JavascriptExecutor) {
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE);
+        }
+        if (cdp) {
+            Map<String, Object> history = ((ChromiumDriver) driver).executeCdpCommand("Page.getNavigationHistory",
+                    Collections.emptyMap());
+            for (Map<String, Object> entry : (List<Map<String, Object>>) history.get("entries")) {
+                String origin = getOrigin((String) entry.get("url"));
+                if (origin != null) {
+                    origins.add(origin);
+                }
+            }
+            return;
+        }
+
+        driver.manage().deleteAllCookies();
+    }
+
+    /**
+     * @param url - url of a document
+     * @return - scheme://host[:port], null if the url has no web origin (about:blank, data: etc.)
+     */
+    private static String getOrigin (String url) {
+        try {
+            URI uri = new URI(url);
+            if (uri.getHost() == null || uri.getScheme() == null || !uri.getScheme().startsWith("http")) {
+                return null;
+            }
+            return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() == -1 ? "" : ":" + uri.getPort());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private boolean isHealthy (WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    private void evict (WebDriver driver) {
+        quit(driver);
+        sessions.decrementAndGet();
+        fill();
+    }
+
+    private void quit (WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            Logger.warn("Unable to quit browser session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Launches sessions in the background until the pool is full
+     */
+    private void fill () {
+        while (!closed) {
+            int current = sessions.get();
+            if (current >= size) {
+                return;
+            }
+            if (sessions.compareAndSet(current, current + 1)) {
+                launcher.execute(this::launch);
+            }
+        }
+    }
+
+    /**
+     * Launches a session, retrying with an exponential backoff. The slot is given back after the last failed attempt,
+     * so the next lease tries again.
+     */
+    private void launch () {
+        for (int attempt = 1; !closed; attempt++) {
+            try {
+                long ts = System.currentTimeMillis();
+                WebDriver driver = factory.get();
+                if (closed) {
+                    quit(driver);
+                    return;
+                }
+
+                idle.offerLast(driver);
+                Logger.debug(String.format("Browser session launched in %d milliseconds", System.currentTimeMillis() - ts));
+                return;
+            } catch (Throwable e) {
+                if (attempt >= LAUNCH_ATTEMPTS) {
+                    Logger.error(String.format("Unable to launch browser session after %d attempts: %s", attempt, e));
+                    break;
+                }
+                Logger.warn(String.format("Unable to launch browser session (attempt %d), retrying: %s", attempt, e));
+            }
+
+            try {
+                Thread.sleep(LAUNCH_BACKOFF_MS << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        sessions.decrementAndGet();
+    }
+}
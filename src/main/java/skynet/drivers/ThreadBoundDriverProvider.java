@@ -0,0 +1,47 @@
+package skynet.drivers;
+
+import net.serenitybdd.core.Serenity;
+import org.openqa.selenium.WebDriver;
+import skynet.interfaces.DriverProvider;
+
+import java.util.function.Supplier;
+
+/**
+ * Default driver provider.
+ * Each thread uses the driver bound to it through bind(), or the fallback driver (Serenity's driver of the current
+ * thread by default) if none is bound.
+ */
+public class ThreadBoundDriverProvider implements DriverProvider {
+    private final ThreadLocal<WebDriver> drivers = new ThreadLocal<>();
+    private final Supplier<WebDriver> fallback;
+
+    public ThreadBoundDriverProvider () {
+        this(Serenity::getDriver);
+    }
+
+    public ThreadBoundDriverProvider (Supplier<WebDriver> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public WebDriver getDriver () {
+        WebDriver driver = drivers.get();
+        return driver != null ? driver : fallback.get();
+    }
+
+    /**
+     * Binds the provided driver to the current thread
+     *
+     * @param driver - driver to use on the current thread
+     */
+    public void bind (WebDriver driver) {
+        drivers.set(driver);
+    }
+
+    /**
+     * Removes the driver bound to the current thread
+     */
+    public void unbind () {
+        drivers.remove();
+    }
+}
@@ -0,0 +1,157 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe cache of the By objects built by Elements.by for a (repository, locator) pair.
+ * <p>
+ * By instances are immutable, so the same instance can be handed out to every caller. When the cache is full the
+ * least recently used entry is dropped.
+ * </p>
+ */
+public abstract class ByCache {
+    private static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static int maxSize = DEFAULT_MAX_SIZE;
+
+    private static final Map<Key, By> cache = new LinkedHashMap<Key, By>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry (Map.Entry<Key, By> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * Gets the cached By for the provided repository and locator
+     *
+     * @param repoName - fully qualified name of the repository class
+     * @param locator  - element locator from repo
+     * @return - cached By or null if not cached yet
+     */
+    static By get (String repoName, String locator) {
+        By by;
+        synchronized (cache) {
+            by = cache.get(new Key(repoName, locator));
+        }
+
+        if (by == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return by;
+    }
+
+    /**
+     * Caches the By built for the provided repository and locator
+     *
+     * @param repoName - fully qualified name of the repository class
+     * @param locator  - element locator from repo
+     * @param by       - By built for the locator
+     */
+    static void put (String repoName, String locator, By by) {
+        synchronized (cache) {
+            cache.put(new Key(repoName, locator), by);
+        }
+    }
+
+    /**
+     * Drops all the cached By objects of the provided repository
+     *
+     * @param repoName - fully qualified name of the repository class
+     */
+    public static void invalidate (String repoName) {
+        synchronized (cache) {
+            Iterator<Key> keys = cache.keySet().iterator();
+            while (keys.hasNext()) {
+                if (Objects.equals(keys.next().repoName, repoName)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops all the cached By objects and resets the hit/miss counters
+     */
+    public static void clear () {
+        synchronized (cache) {
+            cache.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Sets the maximum number of cached By objects.
+     * Entries above the new limit are dropped on the next insert.
+     *
+     * @param size - maximum number of entries, must be greater than 0
+     */
+    public static void setMaxSize (int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("By cache size must be greater than 0");
+        }
+        synchronized (cache) {
+            maxSize = size;
+        }
+    }
+
+    public static long getHits () {
+        return hits.get();
+    }
+
+    public static long getMisses () {
+        return misses.get();
+    }
+
+    public static int size () {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Self-explanatory
+     *
+     * @return - string
+     */
+    public static String stats () {
+        return String.format("By cache: %d entries, %d hits, %d misses", size(), getHits(), getMisses());
+    }
+
+    private static final class Key {
+        private final String repoName;
+        private final String locator;
+
+        private Key (String repoName, String locator) {
+            this.repoName = repoName;
+            this.locator = locator;
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(repoName, key.repoName) && Objects.equals(locator, key.locator);
+        }
+
+        @Override
+        public int hashCode () {
+            return Objects.hash(repoName, locator);
+        }
+    }
+}
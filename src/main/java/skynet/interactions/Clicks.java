@@ -1,17 +1,69 @@
 package skynet.interactions;
 
-import net.serenitybdd.core.Serenity;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import skynet.drivers.Drivers;
+import skynet.drivers.NavigationEpoch;
 import skynet.utils.Logger;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 public abstract class Clicks {
+    /**
+     * JS function (element) returning true if the element can be clicked at its centre point, after scrolling it into
+     * view if needed, or the reason it can not
+     */
+    private static final String PREPARE_CLICK = "function (el) {" +
+            "if (el.isConnected === false) { return 'detached from the document'; }" +
+            "if (!isDisplayed(el)) { return 'not displayed'; }" +
+            "if (el.disabled) { return 'disabled'; }" +
+            "var rect = el.getBoundingClientRect();" +
+            "var width = window.innerWidth || document.documentElement.clientWidth;" +
+            "var height = window.innerHeight || document.documentElement.clientHeight;" +
+            "var x = rect.left + rect.width / 2, y = rect.top + rect.height / 2;" +
+            "if (x < 0 || y < 0 || x >= width || y >= height) {" +
+            "  el.scrollIntoView({block: 'center', inline: 'center'});" +
+            "  rect = el.getBoundingClientRect(); x = rect.left + rect.width / 2; y = rect.top + rect.height / 2;" +
+            "}" +
+            "if (!rect.width || !rect.height) { return 'zero size'; }" +
+            "var root = el.getRootNode && el.getRootNode().elementFromPoint ? el.getRootNode() : document;" +
+            "var hit = root.elementFromPoint(x, y);" +
+            "if (hit && hit !== el && !el.contains(hit)) {" +
+            "  return 'obscured by <' + hit.tagName.toLowerCase() + (hit.id ? ' id=\"' + hit.id + '\"' : '') + " +
+            "    (typeof hit.className === 'string' && hit.className ? ' class=\"' + hit.className + '\"' : '') + '>';" +
+            "}" +
+            "return true;" +
+            "}";
+
+    /**
+     * Consecutive polls returning the same obstruction after which the obstruction is considered stable
+     */
+    private static final int STABLE_OBSTRUCTION_POLLS = 3;
 
-    private static final WebDriver driver = Serenity.getDriver();
+    private static volatile boolean fused = false;
+    private static boolean registered = false;
+
+    private static WebDriver driver () {
+        return Drivers.get();
+    }
+
+    public static boolean isFused () {
+        return fused;
+    }
+
+    /**
+     * Enables fused clicks: clickability, scrolling into view and obstruction at the centre point of the element are
+     * checked by a single script, then the element is clicked by a single action sequence.
+     * The fused attempt uses at most half of the click timeout. If the element does not become clickable in that time,
+     * stays obscured by the same element, or the script can not run, the default click is used with the rest.
+     *
+     * @param enabled - true to use fused clicks, false to wait for clickability and move to the element first
+     */
+    public static void setFused (boolean enabled) {
+        fused = enabled;
+    }
 
     /**
      * Clicks an element
@@ -19,8 +71,11 @@ public abstract class Clicks {
      * @param locator string locator
      * @throws NoSuchElementException thrown if no element is found
      */
+    @SuppressWarnings(value = "try")
     public static void click(String locator) throws Exception {
-        click(Elements.findElement(locator));
+        try (Deadline ignored = Deadline.step()) {
+            click(Elements.findElement(locator));
+        }
     }
 
     /**
@@ -29,8 +84,11 @@ public abstract class Clicks {
      * @param by By selector to use
      * @throws NoSuchElementException thrown if no element is found
      */
+    @SuppressWarnings(value = "try")
     public static void click(By by) throws Exception {
-        click(Elements.findElement(by));
+        try (Deadline ignored = Deadline.step()) {
+            click(Elements.findElement(by));
+        }
     }
 
     /**
@@ -42,7 +100,7 @@ public abstract class Clicks {
      */
     public static void click(Runnable preCondition, By by) throws Exception {
         preCondition.run();
-        click(Elements.findElement(by));
+        click(by);
     }
 
     /**
@@ -53,7 +111,7 @@ public abstract class Clicks {
      * @throws NoSuchElementException thrown if no element is found
      */
     public static void click(By by, Runnable exitCondition) throws Exception {
-        click(Elements.findElement(by));
+        click(by);
         exitCondition.run();
     }
 
@@ -69,9 +127,22 @@ public abstract class Clicks {
             throw new NoSuchElementException("Unable to click null element!");
         }
 
-        Actions actions = new Actions(driver);
+        if (fused) {
+            long start = System.nanoTime();
+            if (fusedClick(el, Deadline.timeout(Duration.ofSeconds(timeout).dividedBy(2)))) {
+                return;
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+            defaultClick(el, (int) Math.max(1, timeout - elapsed));
+            return;
+        }
+        defaultClick(el, timeout);
+    }
+
+    private static void defaultClick(WebElement el, int timeout) throws Exception {
+        Actions actions = new Actions(driver());
         try {
-            el = new WebDriverWait(driver, Duration.ofSeconds(timeout)).until(ExpectedConditions.elementToBeClickable(el));
+            el = WaitEngine.until(ExpectedConditions.elementToBeClickable(el), Duration.ofSeconds(timeout));
         } catch (Exception ex) {
             try {
                 throw new NoSuchElementException("Element not clickable: " + el.getTagName() + ": " + el
@@ -91,6 +162,63 @@ public abstract class Clicks {
         }
     }
 
+    /**
+     * Waits for the element to be clickable at its centre point with the prepareClick page script, then clicks it
+     * with a single action sequence
+     *
+     * @return - false if the element could not be clicked this way
+     */
+    private static boolean fusedClick(WebElement el, Duration timeout) {
+        if (!register()) {
+            return false;
+        }
+
+        String[] reason = {null};
+        int[] repeated = {0};
+        try {
+            WaitEngine.until(() -> {
+                Object prepared;
+                try {
+                    prepared = PageScripts.call(driver(), "prepareClick", el);
+                } catch (StaleElementReferenceException e) {
+                    //a stale element never becomes clickable, stop waiting
+                    throw new WebDriverException(e);
+                }
+                if (Boolean.TRUE.equals(prepared)) {
+                    return true;
+                }
+                String current = String.valueOf(prepared);
+                repeated[0] = current.equals(reason[0]) ? repeated[0] + 1 : 1;
+                reason[0] = current;
+                if (current.startsWith("obscured") && repeated[0] >= STABLE_OBSTRUCTION_POLLS) {
+                    //an overlay that does not move is not waited for, the default click deals with it
+                    throw new WebDriverException("Element stays " + current);
+                }
+                return null;
+            }, timeout);
+            new Actions(driver()).click(el).perform();
+            Logger.debug("Clicked element: " + el.toString());
+            return true;
+        } catch (TimeoutException ex) {
+            Logger.debug("Element not clickable (" + reason[0] + "), falling back to the default click");
+        } catch (Exception ex) {
+            Logger.debug("Fused click failed, falling back to the default click: " + ex.getMessage());
+        }
+        return false;
+    }
+
+    private static synchronized boolean register() {
+        if (!registered) {
+            String atom = ScriptLocators.getIsDisplayedAtom();
+            if (atom == null) {
+                return false;
+            }
+            PageScripts.register("prepareClick", ScriptLocators.withIsDisplayed(atom, "", PREPARE_CLICK));
+            registered = true;
+        }
+        return true;
+    }
+
     public static void moveToAndClickOn(WebElement elementToMoveTo, WebElement elementToClick) throws Exception {
         Elements.moveToElement(elementToMoveTo);
         click(elementToClick);
@@ -105,9 +233,11 @@ public abstract class Clicks {
      * @param locator - element to double-click on
      * @throws Exception - if element not found, throw exception
      */
+    @SuppressWarnings(value = "try")
     public static void dubleClick(String locator) throws Exception {
-        WebElement element = Elements.findElement(locator);
-        dubleClick(element);
+        try (Deadline ignored = Deadline.step()) {
+            dubleClick(Elements.findElement(locator));
+        }
     }
 
     /**
@@ -117,7 +247,7 @@ public abstract class Clicks {
      * @throws Exception - if element not found, throw exception
      */
     public static void dubleClick(WebElement element) {
-        Actions actions = new Actions(driver);
+        Actions actions = new Actions(driver());
         actions.moveToElement(element).click().click().build().perform();
     }
 
@@ -126,8 +256,11 @@ public abstract class Clicks {
      *
      * @param by By selector to use
      */
+    @SuppressWarnings(value = "try")
     public static void javascriptClick(By by) throws Exception {
-        javascriptClick(Elements.findElement(by));
+        try (Deadline ignored = Deadline.step()) {
+            javascriptClick(Elements.findElement(by));
+        }
     }
 
     /**
@@ -136,7 +269,9 @@ public abstract class Clicks {
      * @param e element to be clicked
      */
     public static void javascriptClick(WebElement e) throws Exception {
-        ((JavascriptExecutor) driver).executeScript("arguments[0].focus();arguments[0].click();", e);
+        ((JavascriptExecutor) driver()).executeScript("arguments[0].focus();arguments[0].click();", e);
+        //script clicks are not seen by the navigation listener
+        NavigationEpoch.invalidate();
     }
 
     /**
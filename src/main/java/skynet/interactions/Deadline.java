@@ -0,0 +1,126 @@
+package skynet.interactions;
+
+import java.time.Duration;
+
+/**
+ * Overall time budget shared by all the waits of one step.
+ * <p>
+ * A step (e.g. Clicks.click(locator)) opens a deadline and every nested wait (JS ready, presence, clickable, text)
+ * takes the smaller of its own timeout and the time left until the deadline. A missing element therefore fails once
+ * the step budget is spent, instead of after the sum of all the nested timeouts.
+ * </p>
+ * Deadlines are confined to the current thread. Nested deadlines can only shorten the active one, never extend it.
+ * <p>
+ * e.g:
+ * try (Deadline ignored = Deadline.start(Duration.ofSeconds(5))) {
+ *     Clicks.click("Login");
+ * }
+ * </p>
+ * The scope variable is not referenced, so methods opening a deadline are annotated with
+ * &#64;SuppressWarnings(value = "try") to keep -Xlint:try quiet.
+ */
+public final class Deadline implements AutoCloseable {
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+    private static volatile Duration stepBudget = Duration.ofSeconds(20);
+
+    private final long expiresAt;
+    private final Deadline parent;
+
+    private Deadline (long expiresAt, Deadline parent) {
+        this.expiresAt = expiresAt;
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a deadline for the current thread, or keeps the active one if it expires earlier
+     *
+     * @param budget - time budget
+     * @return - deadline to close when the step is over
+     */
+    public static Deadline start (Duration budget) {
+        Deadline active = current.get();
+        long expiresAt = System.nanoTime() + budget.toNanos();
+        if (active != null && active.expiresAt - expiresAt <= 0) {
+            expiresAt = active.expiresAt;
+        }
+
+        Deadline deadline = new Deadline(expiresAt, active);
+        current.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Opens a deadline with the default step budget
+     *
+     * @return - deadline to close when the step is over
+     */
+    public static Deadline step () {
+        return start(stepBudget);
+    }
+
+    /**
+     * Gets the timeout a wait should use given the active deadline
+     *
+     * @param requested - timeout requested by the wait
+     * @return - the requested timeout, or the time left until the active deadline if shorter
+     */
+    public static Duration timeout (Duration requested) {
+        Deadline active = current.get();
+        if (active == null) {
+            return requested;
+        }
+
+        Duration remaining = active.remaining();
+        return remaining.compareTo(requested) < 0 ? remaining : requested;
+    }
+
+    /**
+     * @return - true if a deadline is active on the current thread
+     */
+    public static boolean isActive () {
+        return current.get() != null;
+    }
+
+    public static Duration getStepBudget () {
+        return stepBudget;
+    }
+
+    /**
+     * Sets the budget used by the steps in Clicks, Type, Dropdowns and Elements
+     *
+     * @param budget - step budget
+     */
+    public static void setStepBudget (Duration budget) {
+        if (budget == null || budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Step budget must be greater than 0");
+        }
+        stepBudget = budget;
+    }
+
+    /**
+     * @return - time left until this deadline, zero if expired
+     */
+    public Duration remaining () {
+        long remaining = expiresAt - System.nanoTime();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    /**
+     * @return - true if this deadline has passed
+     */
+    public boolean isExpired () {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Restores the deadline that was active before this one
+     */
+    @Override
+    public void close () {
+        if (parent == null) {
+            current.remove();
+        } else {
+            current.set(parent);
+        }
+    }
+}
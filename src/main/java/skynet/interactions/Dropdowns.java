@@ -19,8 +19,11 @@ public abstract class Dropdowns {
      * @param locator String locator in format "BillingInfoRepo.RepositoryEnum.PaymentMethodFrame.name()"
      * @param text     text to select
      */
+    @SuppressWarnings(value = "try")
     public static void selectByText(String locator, String text) throws Exception {
-        selectByText(Elements.findElement(locator), text);
+        try (Deadline ignored = Deadline.step()) {
+            selectByText(Elements.findElement(locator), text);
+        }
     }
 
     /**
@@ -109,9 +112,12 @@ public abstract class Dropdowns {
      * @param by - dropdown locator
      * @throws Exception - throws exception if element is not found
      */
+    @SuppressWarnings(value = "try")
     public static void selectLastOption(By by) throws Exception {
-        Select dropdown = new Select(Elements.findElement(by));
-        dropdown.selectByVisibleText(getLastOption(by));
+        try (Deadline ignored = Deadline.step()) {
+            Select dropdown = new Select(Elements.findElement(by));
+            dropdown.selectByVisibleText(getLastOption(by));
+        }
     }
 
     /**
@@ -119,9 +125,12 @@ public abstract class Dropdowns {
      *
      * @param locator selector of dropdown element
      */
+    @SuppressWarnings(value = "try")
     public static List<String> getAllOptionValues(String locator) throws Exception {
-        Select select = new Select(Elements.findElement(locator));
-        return select.getOptions().stream().map(e -> e.getText().trim()).collect(Collectors.toList());
+        try (Deadline ignored = Deadline.step()) {
+            Select select = new Select(Elements.findElement(locator));
+            return select.getOptions().stream().map(e -> e.getText().trim()).collect(Collectors.toList());
+        }
     }
 
     /**
@@ -162,8 +171,11 @@ public abstract class Dropdowns {
      * @return - return the selected option
      * @throws Exception - throws exception if element is not found
      */
+    @SuppressWarnings(value = "try")
     public static String getSelectedOption(String locator) throws Exception {
-        return getSelectedOption(Elements.findElement(locator)).trim();
+        try (Deadline ignored = Deadline.step()) {
+            return getSelectedOption(Elements.findElement(locator)).trim();
+        }
     }
 
     /**
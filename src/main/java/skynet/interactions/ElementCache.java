@@ -0,0 +1,154 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-thread cache of the elements found by Elements.findElement, keyed by By.
+ * <p>
+ * Each element is cached with the DOM generation token of the page it was found in. The token is sent with the find
+ * script, which skips locating the element and answers "unchanged" if the DOM was not mutated and no other document
+ * was loaded since; the cached element is then reused. Otherwise the entry is dropped and the script result is used.
+ * </p>
+ * Any mutation (nodes, attributes or text) changes the token, so the cache pays off on pages that stay still between
+ * steps. It is disabled by default, see setEnabled.
+ * <p>
+ * When the cache is full the least recently used entry is dropped.
+ * </p>
+ */
+public abstract class ElementCache {
+    private static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static volatile int maxSize = DEFAULT_MAX_SIZE;
+    private static volatile boolean enabled = false;
+
+    private static final ThreadLocal<Map<By, Entry>> cache = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<By, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry (Map.Entry<By, Entry> eldest) {
+                    return size() > maxSize;
+                }
+            });
+
+    /**
+     * Gets the DOM generation token the element cached for the By was found with
+     *
+     * @param by - selenium By
+     * @return - token or null if no element is cached
+     */
+    static String generation (By by) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = cache.get().get(by);
+        return entry != null ? entry.generation : null;
+    }
+
+    /**
+     * Gets the cached element if it was found with the current DOM generation token
+     *
+     * @param by         - selenium By
+     * @param generation - current DOM generation token
+     * @return - cached element or null, in which case the entry is dropped
+     */
+    static WebElement get (By by, String generation) {
+        Map<By, Entry> entries = cache.get();
+        Entry entry = entries.get(by);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.generation.equals(generation)) {
+            hits.incrementAndGet();
+            return entry.element;
+        }
+
+        entries.remove(by);
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the element found with the By
+     *
+     * @param by         - selenium By
+     * @param element    - found element
+     * @param generation - DOM generation token read before the element was found
+     */
+    static void put (By by, WebElement element, String generation) {
+        if (enabled && element != null && generation != null) {
+            cache.get().put(by, new Entry(element, generation));
+        }
+    }
+
+    /**
+     * Drops the elements cached by the current thread
+     */
+    public static void clear () {
+        cache.get().clear();
+    }
+
+    public static boolean isEnabled () {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the cache for all threads
+     *
+     * @param enable - true to reuse elements while the DOM does not change
+     */
+    public static void setEnabled (boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Sets the maximum number of elements cached per thread
+     *
+     * @param size - maximum number of entries
+     */
+    public static void setMaxSize (int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Element cache size must be greater than 0");
+        }
+        maxSize = size;
+    }
+
+    public static long getHits () {
+        return hits.get();
+    }
+
+    public static long getMisses () {
+        return misses.get();
+    }
+
+    public static int size () {
+        return cache.get().size();
+    }
+
+    /**
+     * @return - cache statistics formatted for logging
+     */
+    public static String stats () {
+        long h = hits.get();
+        long m = misses.get();
+        long total = h + m;
+        return String.format("ElementCache: %d entries, %d hits, %d misses (%.1f%% hit rate)", size(), h, m,
+                total == 0 ? 0.0 : h * 100.0 / total);
+    }
+
+    private static final class Entry {
+        private final WebElement element;
+        private final String generation;
+
+        private Entry (WebElement element, String generation) {
+            this.element = element;
+            this.generation = generation;
+        }
+    }
+}
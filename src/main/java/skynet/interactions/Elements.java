@@ -1,23 +1,69 @@
 package skynet.interactions;
 
 import io.appium.java_client.MobileBy;
-import net.serenitybdd.core.Serenity;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import skynet.Statics;
+import skynet.drivers.Drivers;
 import skynet.extensions.StringExtensions;
 import skynet.utils.Logger;
 import skynet.utils.Utils;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public abstract class Elements {
-    private static final WebDriver driver = Serenity.getDriver();
+    private static final int MAX_STALE_RETRIES = 3;
+
+    /**
+     * JS function (element) returning the absolute xpath of the element, installed in the page once per document
+     */
+    private static final String ABSOLUTE_XPATH = "function (element) {" + "var comp, comps = [];" + "var parent = null;" + "var xpath = '';" + "var getPos = function(element) {" + "var position = 1, curNode;" + "if (element.nodeType == Node.ATTRIBUTE_NODE) {" + "return null;" + "}" + "for (curNode = element.previousSibling; curNode; curNode = curNode.previousSibling){" + "if (curNode.nodeName == element.nodeName) {" + "++position;" + "}" + "}" + "return position;" + "};" +
+
+                "if (element instanceof Document) {" + "return '/';" + "}" +
+
+                "for (; element && !(element instanceof Document); element = element.nodeType == Node" + ".ATTRIBUTE_NODE ? element.ownerElement : element.parentNode) {" + "comp = comps[comps.length] = {};" + "switch (element.nodeType) {" + "case Node.TEXT_NODE:" + "comp.name = 'text()';" + "break;" + "case Node.ATTRIBUTE_NODE:" + "comp.name = '@' + element.nodeName;" + "break;" + "case Node.PROCESSING_INSTRUCTION_NODE:" + "comp.name = 'processing-instruction()';" + "break;" + "case Node.COMMENT_NODE:" + "comp.name = 'comment()';" + "break;" + "case Node.ELEMENT_NODE:" + "comp.name = element.nodeName;" + "break;" + "}" + "comp.position = getPos(element);" + "}" +
+
+                "for (var i = comps.length - 1; i >= 0; i--) {" + "comp = comps[i];" + "xpath += '/' + comp.name.toLowerCase();" + "if (comp.position !== null) {" + "xpath += '[' + comp.position + ']';" + "}" + "}" +
+
+                "return xpath;" +
+
+                "}";
+
+    /**
+     * JS function (using, value, names) returning, for each element matching the locator, the text if names is null,
+     * otherwise a map of the requested attributes. Null if the locator strategy is not supported.
+     */
+    private static final String READ_ALL = "function (using, value, names) {" +
+            "var found = locate(using, value);" +
+            "if (found === null) { return null; }" +
+            "return found.map(function (el) {" +
+            "  if (!names) { return textOrValue(el); }" +
+            "  var values = {};" +
+            "  for (var i = 0; i < names.length; i++) { values[names[i]] = attribute(el, names[i]); }" +
+            "  return values;" +
+            "});" +
+            "}";
+
+    static {
+        PageScripts.register("absoluteXPath", ABSOLUTE_XPATH);
+        PageScripts.register("textOrValue", ScriptLocators.TEXT_OR_VALUE);
+        PageScripts.register("readAll", "(function () { var locate = " + ScriptLocators.LOCATE + ";" +
+                "var textOrValue = " + ScriptLocators.TEXT_OR_VALUE + ";" +
+                "var attribute = " + ScriptLocators.ATTRIBUTE + ";" +
+                "return " + READ_ALL + "; })()");
+    }
+
+    private static WebDriver driver () {
+        return Drivers.get();
+    }
 
     //---------------------------------------------------------------------------------------------------------------------------------------------------//
     //---------------------------------------------------------------------------------------------------------------------------------------------------//
@@ -41,8 +87,25 @@ public abstract class Elements {
      * In selenium the element will be constructed as: element.findElement(By.id("selector"))
      * </>
      */
-    @SuppressWarnings(value = "all")
     public static By by (String locator) throws Exception {
+        String repoName = Statics.getRepoName();
+        By by = ByCache.get(repoName, locator);
+        if (by == null) {
+            by = createBy(locator);
+            ByCache.put(repoName, locator, by);
+        }
+        return by;
+    }
+
+    /**
+     * Builds the By for the provided locator from the active repository
+     *
+     * @param locator - element locator from repo
+     * @return - selenium By
+     * @throws Exception - throws exception if the locator is not found or its strategy is not valid
+     */
+    @SuppressWarnings(value = "all")
+    private static By createBy (String locator) throws Exception {
         PageElement pageElement = new PageElement(locator);
         if (pageElement.elementBy == null) {
             Logger.exception("null locator provided! Check if you are setting the Repo correctly before you provide the locator!");
@@ -90,30 +153,7 @@ public abstract class Elements {
      * @return - true on valid locator strategy
      */
     private static boolean isValidLocatorStrategy (String strategy) {
-        switch (strategy) {
-            case "id":
-            case "linkText":
-            case "link text":
-            case "name":
-            case "partialLinkText":
-            case "partial link text":
-            case "tagName":
-            case "tag name":
-            case "xpath":
-            case "className":
-            case "class":
-            case "class name":
-            case "cssSelector":
-            case "css selector":
-            case "css":
-            case "UIAutomator":
-            case "uiAutomator":
-            case "mobileid":
-            case "accessibillity":
-                return true;
-            default:
-                return false;
-        }
+        return LocatorStrategy.isValid(strategy);
     }
 
     /**
@@ -195,7 +235,7 @@ public abstract class Elements {
      * @throws Exception - throws exception
      */
     public static void moveToElement(WebElement element) throws Exception {
-        Actions action = new Actions(driver);
+        Actions action = new Actions(driver());
         action.moveToElement(element).build().perform();
     }
 
@@ -224,8 +264,11 @@ public abstract class Elements {
      * @return - returns the webelement
      * @throws NoSuchElementException - throws NoSuchElementException if element does not exist
      */
+    @SuppressWarnings(value = "try")
     public static WebElement findElement (String locator, boolean throwException) throws Exception {
-        return findElement(by(locator), throwException);
+        try (Deadline ignored = Deadline.step()) {
+            return findElement(by(locator), throwException);
+        }
     }
 
     /**
@@ -250,37 +293,88 @@ public abstract class Elements {
      */
     public static WebElement findElement (By by, boolean throwException) throws Exception {
         Logger.info("Find element using selector : " + by.toString());
-        try {
+        for (int attempt = 1; ; attempt++) {
             try {
-                //Waiting just a bit for the element to show up
-                Wait.waitUntilJSReady();
-                new WebDriverWait(driver, Duration.ofSeconds(10)).until(ExpectedConditions.presenceOfElementLocated(by));
-            } catch (Exception e) {
-                //nothing to do here
+                return locate(by);
+            } catch (StaleElementReferenceException e) {
+                if (attempt >= MAX_STALE_RETRIES) {
+                    if (throwException) {
+                        Logger.exception(String.format("Element with selector %s is still stale after %d attempts: %s",
+                                by, attempt, e.getMessage()));
+                    }
+                    Logger.warn(String.format("Element with selector %s is still stale after %d attempts", by, attempt));
+                    return null;
+                }
+                Logger.warn(e.getMessage());
+            } catch (NoSuchElementException ex) {
+                if (throwException) {
+                    Logger.exception("No element found with selector: " + by);
+                }
+                Logger.warn("No element found with selector: " + by);
+                return null;
             }
+        }
+    }
 
-            List<WebElement> elements = driver.findElements(by);
-            if (elements == null || elements.size() == 0) {
-                throw new NoSuchElementException("Unable to locate an element using selector : " + by);
+    /**
+     * Finds the first visible element matching the By, or the first one if none is visible, and records its chain.
+     * The element is reused from the ElementCache while the DOM does not change.
+     *
+     * @param by - element by
+     * @return - the webelement
+     * @throws NoSuchElementException - if no element matches
+     */
+    private static WebElement locate (By by) {
+        //Reuse the element found earlier if the DOM did not change since, checked by the find script itself
+        String known = ElementCache.generation(by);
+        if (known != null) {
+            ScriptLocators.VisibleElements found = ScriptLocators.findVisible(driver(), by, true, known);
+            String generation = found != null ? found.generation : null;
+            WebElement cached = ElementCache.get(by, generation);
+            if (cached != null) {
+                return cached;
             }
-            List<WebElement> visible = elements.stream().filter(WebElement::isDisplayed).collect(Collectors.toList());
-            if (!visible.isEmpty()) {
-                elements = visible;
+            if (found != null && !found.unchanged && found.count > 0) {
+                return record(by, found);
             }
+        }
 
-            return elements.get(0);
-        } catch (StaleElementReferenceException e) {
-            Logger.warn(e.getMessage());
-            StaleElementUtils.refreshElement(by);
-            findElement(by, throwException);
-        } catch (NoSuchElementException ex) {
-            if (throwException) {
-                Logger.exception("No element found with selector: " + by);
+        try {
+            //Waiting just a bit for the element to show up
+            Wait.waitUntilJSReady();
+            WaitEngine.until(ExpectedConditions.presenceOfElementLocated(by), Duration.ofSeconds(10));
+        } catch (Exception e) {
+            //nothing to do here
+        }
+
+        ScriptLocators.VisibleElements found = ScriptLocators.findVisible(driver(), by, true, null);
+        if (found != null) {
+            if (found.count == 0) {
+                throw new NoSuchElementException("Unable to locate an element using selector : " + by);
             }
-            Logger.warn("No element found with selector: " + by);
+            return record(by, found);
         }
 
-        return null;
+        List<WebElement> elements = driver().findElements(by);
+        if (elements == null || elements.size() == 0) {
+            throw new NoSuchElementException("Unable to locate an element using selector : " + by);
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i).isDisplayed()) {
+                return LocatorChain.record(elements.get(i), LocatorChain.of(by, i));
+            }
+        }
+        return LocatorChain.record(elements.get(0), LocatorChain.of(by, 0));
+    }
+
+    /**
+     * Records the chain of the first visible element found, or of the first one if none is visible, and caches it
+     */
+    private static WebElement record (By by, ScriptLocators.VisibleElements found) {
+        WebElement element = found.visible.isEmpty() ? LocatorChain.record(found.first, LocatorChain.of(by, 0))
+                : LocatorChain.record(found.visible.get(0), LocatorChain.of(by, found.indexes.get(0)));
+        ElementCache.put(by, element, found.generation);
+        return element;
     }
 
     /**
@@ -358,8 +452,11 @@ public abstract class Elements {
      * @return list of WebElements selected by el after filter is applied
      * @throws NoSuchElementException - throws NoSuchElementException if the element does not exist
      */
+    @SuppressWarnings(value = "try")
     public static List<WebElement> findElements (String locator, Predicate<WebElement> filter, boolean throwException) throws Exception {
-        return findElements(by(locator), filter, throwException);
+        try (Deadline ignored = Deadline.step()) {
+            return findElements(by(locator), filter, throwException);
+        }
     }
 
     /**
@@ -390,9 +487,10 @@ public abstract class Elements {
         Wait.waitNoMsg(ExpectedConditions.presenceOfAllElementsLocatedBy(by), timeout, false);
 
         try {
-            elements = filter != null ?
-                    driver.findElements(by).stream().filter(filter).collect(Collectors.toList()) :
-                    driver.findElements(by);
+            elements = LocatorChain.record(driver().findElements(by), by);
+            if (filter != null) {
+                elements = elements.stream().filter(filter).collect(Collectors.toList());
+            }
         } catch (Exception ex) {
             if (throwException) {
                 Logger.exception("No elements found for selector: " + by.toString());
@@ -409,6 +507,54 @@ public abstract class Elements {
         return elements;
     }
 
+    /**
+     * Retrieves all visible elements using a given locator from repo
+     *
+     * @param locator        - name of the item from repository class enum
+     * @param throwException - if true throws an Exception if no element is found
+     * @return - list of visible WebElements, empty if elements are found but none is displayed
+     * @throws NoSuchElementException - throws NoSuchElementException if the element does not exist
+     */
+    public static List<WebElement> findVisibleElements (String locator, boolean throwException) throws Exception {
+        return findVisibleElements(by(locator), throwException);
+    }
+
+    /**
+     * Retrieves all visible elements using the provided By.
+     * Matching and visibility filtering are done in a single script execution when the By allows it.
+     *
+     * @param by             - element by
+     * @param throwException - if true throws an Exception if no element is found
+     * @return - list of visible WebElements, empty if elements are found but none is displayed
+     * @throws NoSuchElementException - throws NoSuchElementException if the element does not exist
+     */
+    public static List<WebElement> findVisibleElements (By by, boolean throwException) throws Exception {
+        Wait.waitNoMsg(ExpectedConditions.presenceOfAllElementsLocatedBy(by), 10, false);
+
+        ScriptLocators.VisibleElements found = ScriptLocators.findVisible(driver(), by, false, null);
+        int count;
+        List<WebElement> visible;
+        if (found != null) {
+            count = found.count;
+            visible = new ArrayList<>(found.visible);
+            for (int i = 0; i < visible.size(); i++) {
+                LocatorChain.record(visible.get(i), LocatorChain.of(by, found.indexes.get(i)));
+            }
+        } else {
+            List<WebElement> elements = LocatorChain.record(driver().findElements(by), by);
+            count = elements.size();
+            visible = elements.stream().filter(WebElement::isDisplayed).collect(Collectors.toList());
+        }
+
+        if (count == 0) {
+            if (throwException) {
+                Logger.exception("No elements found with selector : " + by.toString());
+            }
+            Logger.error("No elements found with selector : " + by.toString());
+        }
+        return visible;
+    }
+
     public static List<WebElement> findElementsByDescendant (String locator, By descendant) throws Exception {
         List<WebElement> allElements = Elements.findElements(locator);
         List<WebElement> newList = new ArrayList<>();
@@ -485,7 +631,8 @@ public abstract class Elements {
      * @return - list of WebElements with all descendants
      */
     public static List<WebElement> findDescendantsByTagName(WebElement elem, String tagName) {
-        return elem.findElements(By.tagName(tagName));
+        By by = By.tagName(tagName);
+        return LocatorChain.record(elem, elem.findElements(by), by);
     }
 
     /**
@@ -566,7 +713,10 @@ public abstract class Elements {
      */
     public static WebElement findParent(WebElement el, String tag) {
         Logger.info(el.toString());
-        return el.findElement(By.xpath("parent::" + tag));
+        By by = By.xpath("parent::" + tag);
+        WebElement parent = el.findElement(by);
+        LocatorChain chain = LocatorChain.get(el);
+        return LocatorChain.record(parent, chain == null ? null : chain.child(by, 0));
     }
 
     /**
@@ -610,21 +760,149 @@ public abstract class Elements {
         try {
             WebElement element = findElement(locator);
 
-            if (!StringExtensions.isEmpty(element.getText())) {
-                return element.getText();
-            } else if (!StringExtensions.isEmpty(element.getAttribute("textContent"))) {
-                return element.getAttribute("textContent");
-            } else if (!StringExtensions.isEmpty(element.getAttribute("value"))) {
-                return element.getAttribute("value");
-            } else {
-                return "";
+            try {
+                Object text = PageScripts.call(driver(), "textOrValue", element);
+                if (text instanceof String) {
+                    return (String) text;
+                }
+            } catch (StaleElementReferenceException e) {
+                throw e;
+            } catch (WebDriverException | ClassCastException e) {
+                Logger.debug("Unable to read the text through script, falling back to WebDriver: " + e.getMessage());
             }
+            return readText(element);
         } catch (Exception e) {
             Logger.error(e.getMessage());
         }
         return "";
     }
 
+    /**
+     * Gets the text of all the elements matching the locator, with the same fallback as getText(String)
+     *
+     * @param locator - element locator from repo
+     * @return - text of each element, empty if no element is found
+     */
+    public static List<String> getTexts (String locator) throws Exception {
+        return getTexts(by(locator));
+    }
+
+    /**
+     * Gets the text of all the elements matching the By, with the same fallback as getText(String).
+     * The texts are read in a single script execution when the By allows it.
+     *
+     * @param by - element by
+     * @return - text of each element, empty if no element is found
+     */
+    public static List<String> getTexts (By by) {
+        List<Object> values = readAll(by, null);
+        List<String> texts = new ArrayList<>();
+        if (values != null) {
+            for (Object value : values) {
+                texts.add((String) value);
+            }
+            return texts;
+        }
+
+        for (WebElement element : driver().findElements(by)) {
+            texts.add(readText(element));
+        }
+        return texts;
+    }
+
+    /**
+     * Gets the attributes of all the elements matching the locator
+     *
+     * @param locator - element locator from repo
+     * @param attrs   - attributes to retrieve
+     * @return - for each element, the attribute values by name (null if the element has no such attribute), empty if
+     * no element is found
+     */
+    public static List<Map<String, String>> getAttributes (String locator, String... attrs) throws Exception {
+        return getAttributes(by(locator), attrs);
+    }
+
+    /**
+     * Gets the attributes of all the elements matching the By.
+     * As with getElementAttribute, the property is used if it exists, the attribute otherwise.
+     * The values are read in a single script execution when the By allows it.
+     *
+     * @param by    - element by
+     * @param attrs - attributes to retrieve
+     * @return - for each element, the attribute values by name (null if the element has no such attribute), empty if
+     * no element is found
+     */
+    @SuppressWarnings(value = "unchecked")
+    public static List<Map<String, String>> getAttributes (By by, String... attrs) {
+        List<Object> values = readAll(by, Arrays.asList(attrs));
+        List<Map<String, String>> attributes = new ArrayList<>();
+        if (values != null) {
+            for (Object value : values) {
+                Map<String, Object> read = (Map<String, Object>) value;
+                Map<String, String> element = new LinkedHashMap<>();
+                for (String attr : attrs) {
+                    Object attribute = read.get(attr);
+                    element.put(attr, attribute == null ? null : attribute.toString());
+                }
+                attributes.add(element);
+            }
+            return attributes;
+        }
+
+        for (WebElement webElement : driver().findElements(by)) {
+            Map<String, String> element = new LinkedHashMap<>();
+            for (String attr : attrs) {
+                element.put(attr, webElement.getAttribute(attr));
+            }
+            attributes.add(element);
+        }
+        return attributes;
+    }
+
+    /**
+     * Waits for the elements and reads them through the readAll page script
+     *
+     * @param by    - element by
+     * @param names - attributes to read or null to read the texts
+     * @return - values or null if the By can not be located through a script
+     */
+    @SuppressWarnings(value = "unchecked")
+    private static List<Object> readAll (By by, List<String> names) {
+        Wait.waitNoMsg(ExpectedConditions.presenceOfAllElementsLocatedBy(by), 10, false);
+
+        Object[] parameters = ScriptLocators.parameters(by);
+        if (parameters == null) {
+            return null;
+        }
+
+        try {
+            Object values = PageScripts.call(driver(), "readAll", parameters[0], parameters[1], names);
+            return values instanceof List ? (List<Object>) values : null;
+        } catch (WebDriverException | ClassCastException e) {
+            Logger.debug("Unable to read the elements through script, falling back to WebDriver: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the text of the element through WebDriver: the text, else textContent, else value.
+     * Same rule as ScriptLocators.TEXT_OR_VALUE: textContent is collapsed into a single line, non-breaking spaces
+     * included, the value is returned as it is.
+     */
+    private static String readText (WebElement element) {
+        String text = element.getText();
+        if (!StringExtensions.isEmpty(text)) {
+            return text;
+        }
+        text = element.getAttribute("textContent");
+        text = text == null ? null : text.replace('\u00a0', ' ').replaceAll("\\s+", " ").trim();
+        if (!StringExtensions.isEmpty(text)) {
+            return text;
+        }
+        text = element.getAttribute("value");
+        return StringExtensions.isEmpty(text) ? "" : text;
+    }
+
     /**
      * Gets an attribute value "attr" from element
      *
@@ -714,16 +992,6 @@ public abstract class Elements {
      * @return - xpath as String
      */
     public static String getAbsoluteXPath (WebElement element) {
-        return (String) ((JavascriptExecutor) driver).executeScript("function absoluteXPath(element) {" + "var comp, comps = [];" + "var parent = null;" + "var xpath = '';" + "var getPos = function(element) {" + "var position = 1, curNode;" + "if (element.nodeType == Node.ATTRIBUTE_NODE) {" + "return null;" + "}" + "for (curNode = element.previousSibling; curNode; curNode = curNode.previousSibling){" + "if (curNode.nodeName == element.nodeName) {" + "++position;" + "}" + "}" + "return position;" + "};" +
-
-                "if (element instanceof Document) {" + "return '/';" + "}" +
-
-                "for (; element && !(element instanceof Document); element = element.nodeType == Node" + ".ATTRIBUTE_NODE ? element.ownerElement : element.parentNode) {" + "comp = comps[comps.length] = {};" + "switch (element.nodeType) {" + "case Node.TEXT_NODE:" + "comp.name = 'text()';" + "break;" + "case Node.ATTRIBUTE_NODE:" + "comp.name = '@' + element.nodeName;" + "break;" + "case Node.PROCESSING_INSTRUCTION_NODE:" + "comp.name = 'processing-instruction()';" + "break;" + "case Node.COMMENT_NODE:" + "comp.name = 'comment()';" + "break;" + "case Node.ELEMENT_NODE:" + "comp.name = element.nodeName;" + "break;" + "}" + "comp.position = getPos(element);" + "}" +
-
-                "for (var i = comps.length - 1; i >= 0; i--) {" + "comp = comps[i];" + "xpath += '/' + comp.name.toLowerCase();" + "if (comp.position !== null) {" + "xpath += '[' + comp.position + ']';" + "}" + "}" +
-
-                "return xpath;" +
-
-                "} return absoluteXPath(arguments[0]);", element);
+        return (String) PageScripts.call(driver(), "absoluteXPath", element);
     }
 }
@@ -0,0 +1,313 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import skynet.drivers.Drivers;
+import skynet.extensions.StringExtensions;
+import skynet.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills many form fields at once.
+ * <p>
+ * The value of each field decides how it is filled: a Boolean checks or unchecks a checkbox (or checks a radio
+ * button), any other value is typed into an input/textarea or selected by text in a select, like
+ * Dropdowns.selectByText does. A null value clears the field.
+ * </p>
+ * All the fields are awaited together. In fast mode (Type.setFast) the displayed fields whose locator can be used in
+ * the page are filled by a single script; the others, or all of them otherwise, are filled one by one through Type,
+ * Dropdowns and Checkbox. Every field is then read back in a single script and all the mismatches are reported
+ * together.
+ * <p>
+ * e.g:
+ * Map&lt;String, Object&gt; fields = new LinkedHashMap&lt;&gt;();
+ * fields.put("FirstName", "John");
+ * fields.put("Country", "Canada");
+ * fields.put("AcceptTerms", true);
+ * Forms.fill(fields);
+ * </p>
+ */
+public abstract class Forms {
+    private static final String OK = "ok";
+
+    /**
+     * JS function (fields) filling each field [using, value, fieldValue] and returning "ok" or the reason it was not
+     * filled
+     */
+    private static final String FILL = "function (fields) {" +
+            "var fire = function (el, type) { el.dispatchEvent(new Event(type, {bubbles: true})); };" +
+            "return fields.map(function (f) {" +
+            "  var found = locate(f[0], f[1]), el = found && found.length ? found[0] : null, value = f[2];" +
+            "  if (!el) { return 'not found'; }" +
+            "  if (!isDisplayed(el)) { return 'not displayed'; }" +
+            "  if (el.disabled || el.readOnly) { return 'disabled'; }" +
+            "  var tag = el.tagName.toLowerCase(), type = (el.type || '').toLowerCase();" +
+            "  var checkable = tag === 'input' && (type === 'checkbox' || type === 'radio');" +
+            "  if (typeof value === 'boolean') {" +
+            "    if (!checkable) { return 'not a checkbox'; }" +
+            "    if (el.checked !== value) {" +
+            "      if (type === 'radio') { return 'radio buttons can not be unchecked'; }" +
+            "      el.click();" +
+            "    }" +
+            "    return '" + OK + "';" +
+            "  }" +
+            "  if (checkable) { return 'checkboxes expect a Boolean value'; }" +
+            "  if (tag === 'select') {" +
+            "    var target = value.trim().toLowerCase();" +
+            "    var option = Array.prototype.filter.call(el.options, function (o) {" +
+            "      return (o.text || '').trim().toLowerCase() === target; })[0];" +
+            "    if (!option) { return 'option not found'; }" +
+            "    if (!option.selected) { option.selected = true; fire(el, 'input'); fire(el, 'change'); }" +
+            "    return '" + OK + "';" +
+            "  }" +
+            "  if (el.value === value) { return '" + OK + "'; }" +
+            "  return setValue(el, value) === null ? 'not a text field' : '" + OK + "';" +
+            "});" +
+            "}";
+
+    /**
+     * JS function (fields) returning [current value, is select] for each field [using, value]: the checked state of
+     * checkboxes and radio buttons, the text of the selected option of selects, the value otherwise. Null if not found.
+     */
+    private static final String READ = "function (fields) {" +
+            "return fields.map(function (f) {" +
+            "  var found = locate(f[0], f[1]), el = found && found.length ? found[0] : null;" +
+            "  if (!el) { return null; }" +
+            "  var tag = el.tagName.toLowerCase(), type = (el.type || '').toLowerCase();" +
+            "  if (tag === 'input' && (type === 'checkbox' || type === 'radio')) { return [el.checked, false]; }" +
+            "  if (tag === 'select') { var o = el.options[el.selectedIndex]; return [o ? (o.text || '').trim() : '', true]; }" +
+            "  return [el.value === undefined || el.value === null ? '' : String(el.value), false];" +
+            "});" +
+            "}";
+
+    private static final String DEPENDENCIES = "var locate = " + ScriptLocators.LOCATE + ";";
+
+    private static boolean registered = false;
+
+    static {
+        PageScripts.register("readFields", "(function () { " + DEPENDENCIES + "return " + READ + "; })()");
+    }
+
+    /**
+     * Fills the fields and verifies them
+     *
+     * @param fields - values by element locator from repo, filled in iteration order
+     * @throws Exception - if a field is not found, or any field does not hold its value after filling
+     */
+    @SuppressWarnings(value = "try")
+    public static void fill(Map<String, Object> fields) throws Exception {
+        try (Deadline ignored = Deadline.step()) {
+            List<Field> resolved = new ArrayList<>(fields.size());
+            WaitBatch present = WaitBatch.all();
+            for (Map.Entry<String, Object> entry : fields.entrySet()) {
+                Field field = new Field(entry.getKey(), Elements.by(entry.getKey()), entry.getValue());
+                resolved.add(field);
+                present.exists(field.by);
+            }
+            present.await(10, true);
+
+            Map<String, String> errors = new LinkedHashMap<>();
+            List<Field> remaining = fillInPage(resolved);
+            for (Field field : remaining) {
+                try {
+                    fillOne(field);
+                }
+                catch (Exception e) {
+                    errors.put(field.locator, e.getMessage());
+                }
+            }
+
+            List<Reading> actual = read(resolved);
+            List<String> mismatches = new ArrayList<>();
+            for (int i = 0; i < resolved.size(); i++) {
+                Field field = resolved.get(i);
+                if (errors.containsKey(field.locator)) {
+                    mismatches.add(String.format("%s: %s", field.locator, errors.get(field.locator)));
+                }
+                else if (!field.matches(actual.get(i))) {
+                    mismatches.add(String.format("%s: expected \"%s\" but was \"%s\"", field.locator, field.value,
+                            actual.get(i).value));
+                }
+            }
+
+            if (!mismatches.isEmpty()) {
+                Logger.exception(String.format("%d of %d form field(s) not filled as expected:\n%s", mismatches.size(),
+                        resolved.size(), String.join("\n", mismatches)));
+            }
+            Logger.info(String.format("Filled %d form field(s)", resolved.size()));
+        }
+    }
+
+    /**
+     * Fills the fields that can be located in the page with the fillFields page script
+     *
+     * @return - fields that still have to be filled
+     */
+    @SuppressWarnings(value = "unchecked")
+    private static List<Field> fillInPage(List<Field> fields) {
+        List<Field> scripted = new ArrayList<>();
+        List<Object> arguments = new ArrayList<>();
+        List<Field> remaining = new ArrayList<>();
+        for (Field field : fields) {
+            Object[] parameters = ScriptLocators.parameters(field.by);
+            if (parameters == null) {
+                remaining.add(field);
+                continue;
+            }
+            scripted.add(field);
+            arguments.add(Arrays.asList(parameters[0], parameters[1], field.value));
+        }
+
+        if (scripted.isEmpty() || !Type.isFast() || !register()) {
+            remaining.addAll(scripted);
+            return remaining;
+        }
+
+        try {
+            List<Object> results = (List<Object>) PageScripts.call(Drivers.get(), "fillFields", arguments);
+            for (int i = 0; i < scripted.size(); i++) {
+                if (!OK.equals(results.get(i))) {
+                    Logger.debug(String.format("Field %s not filled through script (%s), filling it through WebDriver",
+                            scripted.get(i).locator, results.get(i)));
+                    remaining.add(scripted.get(i));
+                }
+            }
+        }
+        catch (WebDriverException | ClassCastException e) {
+            Logger.debug("Unable to fill the fields through script, filling them one by one: " + e.getMessage());
+            remaining.addAll(scripted);
+        }
+        return remaining;
+    }
+
+    private static synchronized boolean register() {
+        if (!registered) {
+            String atom = ScriptLocators.getIsDisplayedAtom();
+            if (atom == null) {
+                return false;
+            }
+            PageScripts.register("fillFields", ScriptLocators.withIsDisplayed(atom,
+                    DEPENDENCIES + "var setValue = " + Type.SET_VALUE + ";", FILL));
+            registered = true;
+        }
+        return true;
+    }
+
+    private static void fillOne(Field field) throws Exception {
+        WebElement element = Elements.findElement(field.by);
+        if (field.value instanceof Boolean) {
+            if ((Boolean) field.value) {
+                Checkbox.check(element);
+            }
+            else {
+                Checkbox.uncheck(element);
+            }
+        }
+        else if ("select".equalsIgnoreCase(element.getTagName())) {
+            Dropdowns.selectByText(element, (String) field.value);
+        }
+        else {
+            //verified with the other fields by read()
+            Type.setText(element, (String) field.value);
+        }
+    }
+
+    /**
+     * Reads the current value of the fields, with the readFields page script when all their locators can be used in
+     * the page
+     */
+    @SuppressWarnings(value = "unchecked")
+    private static List<Reading> read(List<Field> fields) throws Exception {
+        List<Object> arguments = new ArrayList<>();
+        for (Field field : fields) {
+            Object[] parameters = ScriptLocators.parameters(field.by);
+            if (parameters == null) {
+                arguments = null;
+                break;
+            }
+            arguments.add(Arrays.asList(parameters[0], parameters[1]));
+        }
+
+        if (arguments != null) {
+            try {
+                List<Reading> readings = new ArrayList<>(fields.size());
+                for (Object result : (List<Object>) PageScripts.call(Drivers.get(), "readFields", arguments)) {
+                    List<Object> reading = (List<Object>) result;
+                    readings.add(reading == null ? new Reading(null, false)
+                            : new Reading(reading.get(0), Boolean.TRUE.equals(reading.get(1))));
+                }
+                return readings;
+            }
+            catch (WebDriverException | ClassCastException e) {
+                Logger.debug("Unable to read the fields through script, reading them one by one: " + e.getMessage());
+            }
+        }
+
+        List<Reading> values = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            WebElement element = Elements.findElement(field.by, false);
+            if (element == null) {
+                values.add(new Reading(null, false));
+            }
+            else if (field.value instanceof Boolean) {
+                values.add(new Reading(element.isSelected(), false));
+            }
+            else if ("select".equalsIgnoreCase(element.getTagName())) {
+                values.add(new Reading(Dropdowns.getSelectedOption(element).trim(), true));
+            }
+            else {
+                values.add(new Reading(Type.getCurrentText(element), false));
+            }
+        }
+        return values;
+    }
+
+    private static final class Field {
+        private final String locator;
+        private final By by;
+        /**
+         * Boolean for checkboxes, String otherwise
+         */
+        private final Object value;
+
+        private Field(String locator, By by, Object value) {
+            this.locator = locator;
+            this.by = by;
+            this.value = value instanceof Boolean ? value : value == null ? "" : value.toString();
+        }
+
+        /**
+         * Compares the value read back: exact for checkboxes, case insensitive for selects (options are selected by
+         * text ignoring case), and ignoring white spaces for text fields formatting their input
+         */
+        private boolean matches(Reading actual) {
+            if (value instanceof Boolean || !(actual.value instanceof String)) {
+                return value.equals(actual.value);
+            }
+
+            String expected = (String) value;
+            String current = (String) actual.value;
+            if (actual.select) {
+                return current.equalsIgnoreCase(expected.trim());
+            }
+            return current.equals(expected)
+                    || StringExtensions.removeWhiteSpaces(current).equals(StringExtensions.removeWhiteSpaces(expected));
+        }
+    }
+
+    private static final class Reading {
+        private final Object value;
+        private final boolean select;
+
+        private Reading(Object value, boolean select) {
+            this.value = value;
+            this.select = select;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Path used to find an element: the By of each level, from the driver down to the element, and the index of the
+ * element among the matches of that level.
+ * <p>
+ * Elements found through Elements are recorded with their chain, so a stale element can be found again by replaying
+ * the chain, without parsing WebElement.toString() or looking up methods through reflection.
+ * </p>
+ * The recorded elements are weakly referenced and released with the elements themselves.
+ */
+public final class LocatorChain {
+    private static final Map<WebElement, LocatorChain> chains = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final List<Step> steps;
+
+    private LocatorChain (List<Step> steps) {
+        this.steps = Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * @param by    - By used on the driver
+     * @param index - index of the element among the matches
+     * @return - single level chain
+     */
+    public static LocatorChain of (By by, int index) {
+        List<Step> steps = new ArrayList<>(1);
+        steps.add(new Step(by, index));
+        return new LocatorChain(steps);
+    }
+
+    /**
+     * @param by    - By used on the element found by this chain
+     * @param index - index of the element among the matches
+     * @return - new chain, one level deeper
+     */
+    public LocatorChain child (By by, int index) {
+        List<Step> child = new ArrayList<>(steps.size() + 1);
+        child.addAll(steps);
+        child.add(new Step(by, index));
+        return new LocatorChain(child);
+    }
+
+    /**
+     * @param index - index to use on the last level
+     * @return - chain with the index of the last level replaced
+     */
+    public LocatorChain withIndex (int index) {
+        List<Step> copy = new ArrayList<>(steps);
+        copy.set(copy.size() - 1, new Step(last().by, index));
+        return new LocatorChain(copy);
+    }
+
+    /**
+     * Finds the element again by replaying the chain from the provided root, and records it
+     *
+     * @param root - driver (or element) the chain starts from
+     * @return - found element
+     * @throws NoSuchElementException - if a level has fewer matches than its index
+     */
+    public WebElement resolve (SearchContext root) {
+        SearchContext context = root;
+        for (Step step : steps) {
+            List<WebElement> elements = context.findElements(step.by);
+            if (step.index >= elements.size()) {
+                throw new NoSuchElementException(String.format("Unable to replay locator chain %s: %d element(s) " +
+                        "found with %s", this, elements.size(), step.by));
+            }
+            context = elements.get(step.index);
+        }
+        return record((WebElement) context, this);
+    }
+
+    public By getBy () {
+        return last().by;
+    }
+
+    public int getIndex () {
+        return last().index;
+    }
+
+    public int getDepth () {
+        return steps.size();
+    }
+
+    /**
+     * Records the chain used to find the element
+     *
+     * @param element - found element
+     * @param chain   - chain used to find it
+     * @return - the element
+     */
+    public static WebElement record (WebElement element, LocatorChain chain) {
+        if (element != null && chain != null) {
+            chains.put(element, chain);
+        }
+        return element;
+    }
+
+    /**
+     * Records the chain of each element found with the By, the index being the position in the list
+     *
+     * @param elements - elements found with the By
+     * @param by       - By used on the driver
+     * @return - the elements
+     */
+    public static List<WebElement> record (List<WebElement> elements, By by) {
+        if (elements != null) {
+            for (int i = 0; i < elements.size(); i++) {
+                record(elements.get(i), of(by, i));
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Records the chain of each element found with the By under the parent, the index being the position in the list.
+     * Nothing is recorded if the chain of the parent is unknown.
+     *
+     * @param parent   - parent element
+     * @param elements - elements found with the By under the parent
+     * @param by       - By used on the parent
+     * @return - the elements
+     */
+    public static List<WebElement> record (WebElement parent, List<WebElement> elements, By by) {
+        LocatorChain parentChain = get(parent);
+        if (parentChain != null && elements != null) {
+            for (int i = 0; i < elements.size(); i++) {
+                record(elements.get(i), parentChain.child(by, i));
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * @param element - web element
+     * @return - chain used to find the element or null if it was not found through Elements
+     */
+    public static LocatorChain get (WebElement element) {
+        return element == null ? null : chains.get(element);
+    }
+
+    private Step last () {
+        return steps.get(steps.size() - 1);
+    }
+
+    @Override
+    public String toString () {
+        StringBuilder builder = new StringBuilder();
+        for (Step step : steps) {
+            if (builder.length() > 0) {
+                builder.append(" -> ");
+            }
+            builder.append(step.by).append('[').append(step.index).append(']');
+        }
+        return builder.toString();
+    }
+
+    private static final class Step {
+        private final By by;
+        private final int index;
+
+        private Step (By by, int index) {
+            this.by = by;
+            this.index = index;
+        }
+    }
+}
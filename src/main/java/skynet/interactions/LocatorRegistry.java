@@ -0,0 +1,220 @@
+package skynet.interactions;
+
+import skynet.interfaces.LocatorTable;
+import skynet.utils.Logger;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an immutable index of every repository that has been used so far.
+ * <p>
+ * A repository (the class set through Statics.setRepoName) is loaded, instantiated and read through its getAll() method
+ * only once. Every following PageElement lookup is a plain hash lookup on the cached index.
+ * </p>
+ * <p>
+ * Repository enums annotated with &#64;LocatorRepository get a LocatorTable generated at build time. The tables of a
+ * repository are merged and used without loading or instantiating the repository class, provided every repository
+ * enum of the class has one. Otherwise the repository is read through getAll() as usual.
+ * </p>
+ */
+public abstract class LocatorRegistry {
+    private static final Map<String, RepositoryIndex> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the [by, selector] pair of an element from the provided repository
+     *
+     * @param repoName    - fully qualified name of the repository class
+     * @param elementName - element name from the repository, e.g. Repo.RepositoryEnum.Frame.name()
+     * @return - unmodifiable [by, selector] list or null if the repository has no such element
+     * @throws Exception - throws exception if the repository can not be loaded
+     */
+    static List<String> lookup (String repoName, String elementName) throws Exception {
+        return index(repoName).locators.get(elementName);
+    }
+
+    /**
+     * Gets all the elements of the provided repository
+     *
+     * @param repoName - fully qualified name of the repository class
+     * @return - unmodifiable map of element name to [by, selector]
+     * @throws Exception - throws exception if the repository can not be loaded
+     */
+    public static Map<String, List<String>> getAll (String repoName) throws Exception {
+        return index(repoName).locators;
+    }
+
+    /**
+     * Drops the cached index of the provided repository so that it is read again on the next lookup
+     *
+     * @param repoName - fully qualified name of the repository class
+     */
+    public static void invalidate (String repoName) {
+        ByCache.invalidate(repoName);
+        if (repoName != null && repositories.remove(repoName) != null) {
+            Logger.debug(String.format("Locator index for '%s' invalidated", repoName));
+        }
+    }
+
+    /**
+     * Drops all the cached repository indexes
+     */
+    public static void invalidateAll () {
+        ByCache.clear();
+        repositories.clear();
+    }
+
+    /**
+     * Called when the active repository changes.
+     * The cached index is dropped only if the name now resolves to a different class than the one that was indexed
+     * (e.g. the class was reloaded by another class loader).
+     *
+     * @param repoName - fully qualified name of the new active repository class
+     */
+    public static void repositoryChanged (String repoName) {
+        if (repoName == null) {
+            return;
+        }
+
+        RepositoryIndex index = repositories.get(repoName);
+        if (index == null || index.repoClass == null) {
+            return;
+        }
+
+        try {
+            if (Class.forName(repoName) != index.repoClass) {
+                invalidate(repoName);
+            }
+        } catch (ClassNotFoundException e) {
+            invalidate(repoName);
+        }
+    }
+
+    /**
+     * Gets the cached index of the provided repository or builds it if it is not cached yet
+     *
+     * @param repoName - fully qualified name of the repository class
+     * @return - repository index
+     * @throws Exception - throws exception if the repository can not be loaded
+     */
+    private static RepositoryIndex index (String repoName) throws Exception {
+        if (repoName == null) {
+            Logger.exception("No repository set! Check if you are setting the Repo correctly before you provide the locator!");
+        }
+
+        RepositoryIndex index = repositories.get(repoName);
+        if (index != null) {
+            return index;
+        }
+
+        List<LocatorTable> tables = GeneratedTables.TABLES.get(repoName);
+        index = isComplete(tables) ? merge(repoName, tables) : build(repoName);
+        RepositoryIndex existing = repositories.putIfAbsent(repoName, index);
+        return existing != null ? existing : index;
+    }
+
+    private static boolean isComplete (List<LocatorTable> tables) {
+        if (tables == null) {
+            return false;
+        }
+        for (LocatorTable table : tables) {
+            if (!table.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges the generated tables of a repository
+     *
+     * @param repoName - fully qualified name of the repository class
+     * @param tables   - generated tables registered for the repository
+     * @return - repository index
+     * @throws Exception - throws exception if two tables define the same element
+     */
+    private static RepositoryIndex merge (String repoName, List<LocatorTable> tables) throws Exception {
+        Map<String, List<String>> locators = new HashMap<>();
+        for (LocatorTable table : tables) {
+            for (Map.Entry<String, List<String>> entry : table.getAll().entrySet()) {
+                if (locators.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                    Logger.exception(String.format("Element '%s' is defined more than once in repository '%s'",
+                            entry.getKey(), repoName));
+                }
+            }
+        }
+        return new RepositoryIndex(null, Collections.unmodifiableMap(locators));
+    }
+
+    /**
+     * Loads the repository class, reads all its elements and indexes them by element name
+     *
+     * @param repoName - fully qualified name of the repository class
+     * @return - repository index
+     * @throws Exception - throws exception if the repository can not be loaded
+     */
+    private static RepositoryIndex build (String repoName) throws Exception {
+        Class<?> repoClass = null;
+        Object repo = null;
+        try {
+            repoClass = Class.forName(repoName);
+            Constructor<?> ctor = repoClass.getConstructor();
+            repo = ctor.newInstance();
+        } catch (Exception e) {
+            Logger.exception(e.fillInStackTrace().getMessage());
+        }
+
+        @SuppressWarnings(value = "unchecked")
+        Map<String, ArrayList<String>> all = (Map<String, ArrayList<String>>) repo.getClass().getMethod("getAll").invoke(repo);
+
+        Map<String, List<String>> locators = new HashMap<>();
+        if (all != null) {
+            for (Map.Entry<String, ArrayList<String>> entry : all.entrySet()) {
+                locators.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+        }
+
+        Logger.debug(String.format("Indexed %d locators from repository '%s'", locators.size(), repoName));
+        return new RepositoryIndex(repoClass, Collections.unmodifiableMap(locators));
+    }
+
+    /**
+     * Locator tables generated by the locator repository processor, loaded once on first use
+     */
+    private static final class GeneratedTables {
+        private static final Map<String, List<LocatorTable>> TABLES = load();
+
+        private static Map<String, List<LocatorTable>> load () {
+            Map<String, List<LocatorTable>> tables = new HashMap<>();
+            try {
+                for (LocatorTable table : ServiceLoader.load(LocatorTable.class)) {
+                    tables.computeIfAbsent(table.repository(), k -> new ArrayList<>()).add(table);
+                }
+            } catch (ServiceConfigurationError e) {
+                Logger.warn("Unable to load generated locator tables: " + e.getMessage());
+            }
+
+            if (!tables.isEmpty()) {
+                Logger.debug(String.format("Loaded generated locator tables for %d repositories", tables.size()));
+            }
+            return Collections.unmodifiableMap(tables);
+        }
+    }
+
+    private static final class RepositoryIndex {
+        private final Class<?> repoClass;
+        private final Map<String, List<String>> locators;
+
+        private RepositoryIndex (Class<?> repoClass, Map<String, List<String>> locators) {
+            this.repoClass = repoClass;
+            this.locators = locators;
+        }
+    }
+}
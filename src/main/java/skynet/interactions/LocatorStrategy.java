@@ -0,0 +1,46 @@
+package skynet.interactions;
+
+/**
+ * Locator strategies that can be used in a repository, e.g. Frame("id", "selector").
+ * <p>
+ * Kept apart from Elements so that it can also be used at compile time by the locator repository processor.
+ * </p>
+ */
+public abstract class LocatorStrategy {
+    /**
+     * Checks for valid locator strategy
+     *
+     * @param strategy - locator strategy eg. id, name
+     * @return - true on valid locator strategy
+     */
+    public static boolean isValid (String strategy) {
+        if (strategy == null) {
+            return false;
+        }
+
+        switch (strategy) {
+            case "id":
+            case "linkText":
+            case "link text":
+            case "name":
+            case "partialLinkText":
+            case "partial link text":
+            case "tagName":
+            case "tag name":
+            case "xpath":
+            case "className":
+            case "class":
+            case "class name":
+            case "cssSelector":
+            case "css selector":
+            case "css":
+            case "UIAutomator":
+            case "uiAutomator":
+            case "mobileid":
+            case "accessibillity":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package skynet.interactions;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import skynet.utils.Logger;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Tracks the network activity of the page.
+ * <p>
+ * The tracker patches fetch and XMLHttpRequest to count pending requests, and setTimeout to count pending short timers
+ * when a short timer threshold is set (timers are not tracked by default). Every query returns the counters in the same
+ * roundtrip. Pending jQuery ajax calls are counted as requests too.
+ * </p>
+ * On Chromium drivers the first query registers the tracker to run at the start of every new document, through CDP,
+ * so the requests a page starts while loading are seen. Otherwise, and on the document already open, the tracker is
+ * installed by the first query on the document: requests started before are not seen, so a freshly installed tracker
+ * reports the page as just active and a quiet period must elapse before it is considered idle.
+ */
+public abstract class NetworkTracker {
+    private static final String TRACK = "function (threshold) {" +
+            "var w = window;" +
+            "if (!w.__skynetNetwork) {" +
+            "  var net = w.__skynetNetwork = {requests: 0, timers: {}, timerCount: 0, last: Date.now(), threshold: threshold};" +
+            "  var touch = function () { net.last = Date.now(); };" +
+            "  var begin = function () { net.requests++; touch(); };" +
+            "  var end = function () { net.requests = Math.max(0, net.requests - 1); touch(); };" +
+            "  if (w.fetch) {" +
+            "    var fetch = w.fetch;" +
+            "    w.fetch = function () {" +
+            "      begin();" +
+            "      try {" +
+            "        return fetch.apply(this, arguments).then(function (r) { end(); return r; }, function (e) { end(); throw e; });" +
+            "      } catch (e) { end(); throw e; }" +
+            "    };" +
+            "  }" +
+            "  if (w.XMLHttpRequest) {" +
+            "    var send = w.XMLHttpRequest.prototype.send;" +
+            "    w.XMLHttpRequest.prototype.send = function () {" +
+            "      var done = false, finish = function () { if (!done) { done = true; end(); } };" +
+            "      begin();" +
+            "      this.addEventListener('loadend', finish);" +
+            "      try { return send.apply(this, arguments); } catch (e) { finish(); throw e; }" +
+            "    };" +
+            "  }" +
+            "}" +
+            "var state = w.__skynetNetwork;" +
+            "state.threshold = threshold;" +
+            "if (threshold > 0 && !state.timersTracked) {" +
+            "  state.timersTracked = true;" +
+            "  var setTimer = w.setTimeout, clearTimer = w.clearTimeout;" +
+            "  var release = function (id) { if (state.timers[id]) { delete state.timers[id]; state.timerCount--; } };" +
+            "  w.setTimeout = function (callback, delay) {" +
+            "    var args = Array.prototype.slice.call(arguments);" +
+            "    if (typeof callback !== 'function' || (delay || 0) >= state.threshold) { return setTimer.apply(w, args); }" +
+            "    var id;" +
+            "    args[0] = function () { release(id); return callback.apply(this, arguments); };" +
+            "    id = setTimer.apply(w, args);" +
+            "    state.timers[id] = true; state.timerCount++;" +
+            "    return id;" +
+            "  };" +
+            "  w.clearTimeout = function (id) { release(id); return clearTimer.apply(w, arguments); };" +
+            "}" +
+            "var jQueryActive = 0;" +
+            "try { jQueryActive = w.jQuery && typeof w.jQuery.active === 'number' ? w.jQuery.active : 0; } catch (e) {}" +
+            "return [state.requests + jQueryActive, state.timerCount, Date.now() - state.last, document.readyState === 'complete'];" +
+            "}";
+
+    private static volatile Duration shortTimerThreshold = Duration.ZERO;
+    /**
+     * Chromium drivers the tracker is registered on for new documents
+     */
+    private static final Set<WebDriver> installed = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    static {
+        PageScripts.register("networkState", TRACK);
+    }
+
+    /**
+     * Gets the network activity of the current page, installing the tracker if needed
+     *
+     * @param driver - web driver
+     * @return - network activity
+     */
+    @SuppressWarnings(value = "unchecked")
+    public static NetworkState query (WebDriver driver) {
+        installOnNewDocuments(driver);
+        List<Object> state = (List<Object>) PageScripts.call(driver, "networkState", shortTimerThreshold.toMillis());
+        return new NetworkState(((Number) state.get(0)).intValue(), ((Number) state.get(1)).intValue(),
+                ((Number) state.get(2)).longValue(), Boolean.TRUE.equals(state.get(3)));
+    }
+
+    /**
+     * Registers the tracker to run at the start of every new document, once per Chromium driver
+     *
+     * @param driver - web driver, unwrapped down to the Chromium driver if it is a lazy handle or a decorated driver
+     */
+    private static void installOnNewDocuments (WebDriver driver) {
+        ChromiumDriver chromium = unwrap(driver);
+        if (chromium == null || !installed.add(chromium)) {
+            return;
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("source", "var scripts = document.__skynetScripts = document.__skynetScripts || {};" +
+                "scripts.networkState = " + TRACK + ";" +
+                "scripts.networkState(" + shortTimerThreshold.toMillis() + ");");
+        try {
+            chromium.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", parameters);
+        } catch (WebDriverException e) {
+            Logger.debug("Unable to track the network from the start of new documents: " + e.getMessage());
+        }
+    }
+
+    private static ChromiumDriver unwrap (WebDriver driver) {
+        //a lazy handle resolves to the driver of the thread, which may itself be decorated
+        for (int depth = 0; depth < 5 && driver != null; depth++) {
+            if (driver instanceof ChromiumDriver) {
+                return (ChromiumDriver) driver;
+            }
+            if (!(driver instanceof WrapsDriver)) {
+                return null;
+            }
+            try {
+                driver = ((WrapsDriver) driver).getWrappedDriver();
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public static Duration getShortTimerThreshold () {
+        return shortTimerThreshold;
+    }
+
+    /**
+     * Sets the delay under which a pending setTimeout keeps the page busy, which opts in to timer tracking.
+     * Duration.ZERO (the default) ignores timers, e.g. for pages that keep a short timer running at all times.
+     *
+     * @param threshold - timers with a shorter delay are tracked
+     */
+    public static void setShortTimerThreshold (Duration threshold) {
+        if (threshold == null || threshold.isNegative()) {
+            throw new IllegalArgumentException("Short timer threshold cannot be negative");
+        }
+        shortTimerThreshold = threshold;
+    }
+
+    public static final class NetworkState {
+        private final int pendingRequests;
+        private final int pendingTimers;
+        private final long idleMillis;
+        private final boolean documentComplete;
+
+        private NetworkState (int pendingRequests, int pendingTimers, long idleMillis, boolean documentComplete) {
+            this.pendingRequests = pendingRequests;
+            this.pendingTimers = pendingTimers;
+            this.idleMillis = idleMillis;
+            this.documentComplete = documentComplete;
+        }
+
+        public int getPendingRequests () {
+            return pendingRequests;
+        }
+
+        public int getPendingTimers () {
+            return pendingTimers;
+        }
+
+        /**
+         * @return - milliseconds since the last request started or finished
+         */
+        public long getIdleMillis () {
+            return idleMillis;
+        }
+
+        public boolean isDocumentComplete () {
+            return documentComplete;
+        }
+
+        /**
+         * @param quietPeriod - time without network activity required
+         * @return - true if the document is loaded, nothing is pending and the network was quiet for the quiet period
+         */
+        public boolean isIdle (Duration quietPeriod) {
+            return documentComplete && pendingRequests == 0 && pendingTimers == 0 && idleMillis >= quietPeriod.toMillis();
+        }
+
+        @Override
+        public String toString () {
+            return String.format("%d pending request(s), %d pending timer(s), idle for %d milliseconds, document %s",
+                    pendingRequests, pendingTimers, idleMillis, documentComplete ? "complete" : "loading");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import skynet.drivers.Drivers;
+import skynet.utils.Logger;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Event driven waits.
+ * <p>
+ * A single async script watches the page with a MutationObserver and calls back as soon as the condition is met, so
+ * the wait costs one roundtrip whatever its length. Changes that do not mutate the DOM (e.g. a stylesheet showing an
+ * element) are caught by an in-page check every 100 milliseconds.
+ * </p>
+ * The driver's script timeout is never changed: waits longer than it allows are split into several scripts, each
+ * bounded by an in-page timer.
+ * Every method returns true if the condition was met, false if it was not met within the timeout, and null if it can
+ * not be observed (By not supported by ScriptLocators, navigation during the wait, stale element, ...), in which case
+ * the caller should fall back to polling.
+ */
+abstract class ObserverWaits {
+    private static final String OBSERVE = "function (kind, using, value, element, expected, attr, condition, timeout, callback) {" +
+            "var first = function () { if (element) { return element; } var found = locate(using, value); " +
+            "  return found && found.length ? found[0] : null; };" +
+            "var check = function () {" +
+            "  var el = first();" +
+            "  if (!el) { return false; }" +
+            "  switch (kind) {" +
+            "    case 'visible': return isDisplayed(el);" +
+            "    case 'text': return text(el).indexOf(expected) >= 0;" +
+            "    case 'attribute': return matches(attribute(el, attr), expected, condition);" +
+            "  }" +
+            "  return false;" +
+            "};" +
+            "if (check()) { callback(true); return; }" +
+            "var done = false, observer, interval, timer;" +
+            "var finish = function (result) {" +
+            "  if (done) { return; }" +
+            "  done = true; observer.disconnect(); clearInterval(interval); clearTimeout(timer); callback(result); };" +
+            "var onChange = function () { if (check()) { finish(true); } };" +
+            "observer = new MutationObserver(onChange);" +
+            "observer.observe(document.documentElement || document, " +
+            "  {subtree: true, childList: true, attributes: true, characterData: true});" +
+            "interval = setInterval(onChange, 100);" +
+            "timer = setTimeout(function () { finish(check()); }, timeout);" +
+            "}";
+
+    /**
+     * Margin kept between the in-page timer of a script and the driver's script timeout
+     */
+    private static final Duration SCRIPT_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+    /**
+     * Script timeout of the W3C spec, assumed when the driver can not tell its own
+     */
+    private static final Duration DEFAULT_SCRIPT_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Map<WebDriver, Duration> scriptTimeouts = Collections.synchronizedMap(new WeakHashMap<>());
+    private static boolean registered = false;
+
+    /**
+     * Waits for the first element matching the By to be visible
+     *
+     * @param by      - selenium By
+     * @param timeout - time to wait
+     * @return - true if visible, false if not visible within the timeout, null if it can not be observed
+     */
+    static Boolean visible (By by, Duration timeout) {
+        return observe("visible", by, null, null, null, null, timeout);
+    }
+
+    /**
+     * Waits for the first element matching the By to contain the text
+     *
+     * @param by      - selenium By
+     * @param text    - expected text
+     * @param timeout - time to wait
+     * @return - true if found, false if not found within the timeout, null if it can not be observed
+     */
+    static Boolean text (By by, String text, Duration timeout) {
+        return observe("text", by, null, text, null, null, timeout);
+    }
+
+    /**
+     * Waits for the element to contain the text
+     *
+     * @param element - web element
+     * @param text    - expected text
+     * @param timeout - time to wait
+     * @return - true if found, false if not found within the timeout, null if it can not be observed
+     */
+    static Boolean text (WebElement element, String text, Duration timeout) {
+        return observe("text", null, element, text, null, null, timeout);
+    }
+
+    /**
+     * Waits for the element's attribute to meet the condition.
+     * As with WebElement.getAttribute(), the property is used if it exists, the attribute otherwise.
+     *
+     * @param element   - web element
+     * @param attr      - attribute name
+     * @param expected  - expected value
+     * @param condition - condition to meet
+     * @param timeout   - time to wait
+     * @return - true if met, false if not met within the timeout, null if it can not be observed
+     */
+    static Boolean attribute (WebElement element, String attr, String expected, Wait.AttributeCondition condition,
+                              Duration timeout) {
+        return observe("attribute", null, element, expected, attr, condition.name(), timeout);
+    }
+
+    private static Boolean observe (String kind, By by, WebElement element, String expected, String attr,
+                                    String condition, Duration timeout) {
+        Object[] parameters = by == null ? new Object[]{null, null} : ScriptLocators.parameters(by);
+        if (parameters == null || !register() || (by == null && element == null)) {
+            return null;
+        }
+
+        try {
+            WebDriver driver = Drivers.current();
+            Duration limit = getScriptLimit(driver);
+            long end = System.nanoTime() + timeout.toNanos();
+            while (true) {
+                Duration remaining = Duration.ofNanos(end - System.nanoTime());
+                Duration slice = remaining.compareTo(limit) < 0 ? remaining : limit;
+                Object result = PageScripts.callAsync(driver, "observe", kind, parameters[0], parameters[1], element,
+                        expected, attr, condition, Math.max(0, slice.toMillis()));
+                if (!(result instanceof Boolean)) {
+                    return null;
+                }
+                if ((Boolean) result || slice.equals(remaining)) {
+                    return (Boolean) result;
+                }
+            }
+        } catch (ScriptTimeoutException e) {
+            return false;
+        } catch (WebDriverException | ClassCastException e) {
+            Logger.debug("Unable to observe the page, falling back to polling: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gets the longest in-page timer a script can run without hitting the driver's script timeout.
+     * The script timeout is read once per driver.
+     */
+    private static Duration getScriptLimit (WebDriver driver) {
+        Duration scriptTimeout = scriptTimeouts.get(driver);
+        if (scriptTimeout == null) {
+            try {
+                scriptTimeout = driver.manage().timeouts().getScriptTimeout();
+            } catch (WebDriverException | UnsupportedOperationException e) {
+                scriptTimeout = null;
+            }
+            if (scriptTimeout == null || scriptTimeout.isZero() || scriptTimeout.isNegative()) {
+                scriptTimeout = DEFAULT_SCRIPT_TIMEOUT;
+            }
+            scriptTimeouts.put(driver, scriptTimeout);
+        }
+        return scriptTimeout.compareTo(SCRIPT_TIMEOUT_MARGIN.multipliedBy(2)) > 0
+                ? scriptTimeout.minus(SCRIPT_TIMEOUT_MARGIN) : scriptTimeout.dividedBy(2);
+    }
+
+    private static synchronized boolean register () {
+        if (!registered) {
+            String atom = ScriptLocators.getIsDisplayedAtom();
+            if (atom == null) {
+                return false;
+            }
+            PageScripts.register("observe", ScriptLocators.withIsDisplayed(atom, ScriptLocators.CONDITION_HELPERS, OBSERVE));
+            registered = true;
+        }
+        return true;
+    }
+}
@@ -1,11 +1,9 @@
 package skynet.interactions;
 
 import skynet.Statics;
-import skynet.utils.Logger;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.List;
 
 public class PageElement {
 
@@ -37,41 +35,25 @@ public class PageElement {
      * @throws Exception - throws exception
      */
     public PageElement (String locator) throws Exception {
-        Object object = new Object();
-        try {
-            Class<?> ttt = Class.forName(Statics.getRepoName());
-            Constructor<?> ctor = ttt.getConstructor();
-            object = ctor.newInstance();
-        } catch (Exception e) {
-            Logger.exception(e.fillInStackTrace().getMessage());
-        }
-
-        @SuppressWarnings(value = "unchecked")
-        Map<String, ArrayList<String>> locators = (Map<String, ArrayList<String>>) object.getClass().getMethod("getAll").invoke(object);
-
-        parseValue(locators, locator);
+        parseValue(LocatorRegistry.lookup(Statics.getRepoName(), locator), locator);
     }
 
     /**
      * Parses the locators and values for a page element
      *
-     * @param locators    values in format 'id, selector'
-     * @param elementName - element to match
+     * @param values      - values in format 'id, selector'
+     * @param elementName - matched element
      * @return - returns the locators
      */
-    private ArrayList<String> parseValue (Map<String, ArrayList<String>> locators, String elementName) {
-        if (locators == null) {
+    private ArrayList<String> parseValue (List<String> values, String elementName) {
+        if (values == null) {
             return elementLocators;
         }
 
-        for (String s : locators.keySet()) {
-            if (s.equals(elementName)) {
-                this.elementBy = locators.get(s).get(0);
-                this.elementSelector = locators.get(s).get(1);
-                this.elementName = s;
-                setLocators();
-            }
-        }
+        this.elementBy = values.get(0);
+        this.elementSelector = values.get(1);
+        this.elementName = elementName;
+        setLocators();
 
         return elementLocators;
     }
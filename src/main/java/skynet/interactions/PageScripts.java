@@ -0,0 +1,110 @@
+package skynet.interactions;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of helper functions installed into the page.
+ * <p>
+ * A helper is sent to the browser once per document: calls send only the helper name and its arguments. When the
+ * helper is missing (first call, navigation, frame switch) the call is answered with a marker and the helper is
+ * installed and called in a second script execution.
+ * </p>
+ * Helpers are JS expressions evaluating to a function, so they can close over their own dependencies, e.g:
+ * <p>
+ * PageScripts.register("double", "(function () { var two = 2; return function (x) { return x * two; }; })()");
+ * Object result = PageScripts.call(driver, "double", 21);
+ * </p>
+ * Asynchronous helpers receive the WebDriver callback as their last argument.
+ */
+public abstract class PageScripts {
+    private static final String MISSING = "__skynet_script_missing__";
+    private static final String SCRIPTS = "document.__skynetScripts";
+
+    private static final String CALL = "var scripts = " + SCRIPTS + ", script = scripts && scripts[arguments[0]];" +
+            "if (!script) { return '" + MISSING + "'; }" +
+            "return script.apply(null, arguments[1]);";
+
+    private static final String CALL_ASYNC = "var callback = arguments[arguments.length - 1];" +
+            "var scripts = " + SCRIPTS + ", script = scripts && scripts[arguments[0]];" +
+            "if (!script) { callback('" + MISSING + "'); return; }" +
+            "script.apply(null, arguments[1].concat([callback]));";
+
+    private static final Map<String, Helper> helpers = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a helper, replacing any helper with the same name.
+     * Pages that already have the previous version installed keep it until they are reloaded.
+     *
+     * @param name     - helper name
+     * @param function - JS expression evaluating to the helper function
+     */
+    public static void register (String name, String function) {
+        String install = "var scripts = " + SCRIPTS + " = " + SCRIPTS + " || {};" +
+                "var script = scripts[arguments[0]] = " + function + ";";
+        helpers.put(name, new Helper(install + "return script.apply(null, arguments[1]);",
+                install + "script.apply(null, arguments[1].concat([arguments[arguments.length - 1]]));"));
+    }
+
+    public static boolean isRegistered (String name) {
+        return helpers.containsKey(name);
+    }
+
+    /**
+     * Calls a registered helper, installing it first if the page does not have it yet
+     *
+     * @param driver - web driver
+     * @param name   - helper name
+     * @param args   - helper arguments
+     * @return - value returned by the helper
+     */
+    public static Object call (WebDriver driver, String name, Object... args) {
+        Helper helper = helper(name);
+        JavascriptExecutor executor = (JavascriptExecutor) driver;
+        Object result = executor.executeScript(CALL, name, Arrays.asList(args));
+        if (MISSING.equals(result)) {
+            result = executor.executeScript(helper.installAndCall, name, Arrays.asList(args));
+        }
+        return result;
+    }
+
+    /**
+     * Calls a registered asynchronous helper, installing it first if the page does not have it yet
+     *
+     * @param driver - web driver
+     * @param name   - helper name
+     * @param args   - helper arguments, the callback is appended
+     * @return - value passed to the callback
+     */
+    public static Object callAsync (WebDriver driver, String name, Object... args) {
+        Helper helper = helper(name);
+        JavascriptExecutor executor = (JavascriptExecutor) driver;
+        Object result = executor.executeAsyncScript(CALL_ASYNC, name, Arrays.asList(args));
+        if (MISSING.equals(result)) {
+            result = executor.executeAsyncScript(helper.installAndCallAsync, name, Arrays.asList(args));
+        }
+        return result;
+    }
+
+    private static Helper helper (String name) {
+        Helper helper = helpers.get(name);
+        if (helper == null) {
+            throw new IllegalArgumentException("Page script not registered: " + name);
+        }
+        return helper;
+    }
+
+    private static final class Helper {
+        private final String installAndCall;
+        private final String installAndCallAsync;
+
+        private Helper (String installAndCall, String installAndCallAsync) {
+            this.installAndCall = installAndCall;
+            this.installAndCallAsync = installAndCallAsync;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import skynet.utils.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locates elements inside the browser so that finding and inspecting them can be done in a single script execution.
+ * <p>
+ * Only By objects that expose their remote parameters (id, name, class name, css selector, xpath, tag name, link text
+ * and partial link text) can be located through a script. For any other By the callers fall back to WebDriver
+ * commands.
+ * </p>
+ */
+abstract class ScriptLocators {
+    /**
+     * JS function (using, value, root) returning an array with the matching elements, or null if the strategy is not
+     * supported
+     */
+    static final String LOCATE = "function (using, value, root) {" +
+            "root = root || document;" +
+            "var attr = function (name) { return '[' + name + '=\"' + value.replace(/([\"\\\\])/g, '\\\\$1') + '\"]'; };" +
+            "var list = function (nodes) { return Array.prototype.slice.call(nodes); };" +
+            "var links = function (partial) { return list(root.querySelectorAll('a')).filter(function (a) {" +
+            "  var text = (a.innerText || a.textContent || '').trim();" +
+            "  return partial ? text.indexOf(value) >= 0 : text === value; }); };" +
+            "switch (using) {" +
+            "  case 'css selector': return list(root.querySelectorAll(value));" +
+            "  case 'id': return list(root.querySelectorAll(attr('id')));" +
+            "  case 'name': return list(root.querySelectorAll(attr('name')));" +
+            "  case 'class name': return list(root.getElementsByClassName(value));" +
+            "  case 'tag name': return list(root.getElementsByTagName(value));" +
+            "  case 'link text': return links(false);" +
+            "  case 'partial link text': return links(true);" +
+            "  case 'xpath':" +
+            "    var snapshot = document.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "    var found = [];" +
+            "    for (var i = 0; i < snapshot.snapshotLength; i++) { found.push(snapshot.snapshotItem(i)); }" +
+            "    return found;" +
+            "  default: return null;" +
+            "}" +
+            "}";
+
+    /**
+     * JS function (element) returning the rendered text of the element
+     */
+    static final String TEXT = "function (el) { return el.innerText !== undefined ? el.innerText : (el.textContent || ''); }";
+
+    /**
+     * JS function (element) returning the text as Elements.getText does: the rendered text, else textContent, else value.
+     * Texts are normalized like WebElement.getText(): non-breaking spaces become spaces, runs of spaces collapse into one
+     * and lines are trimmed. The value is returned as it is.
+     */
+    static final String TEXT_OR_VALUE = "function (el) {" +
+            "var normalize = function (text, singleLine) {" +
+            "  text = text.replace(/\\u00a0/g, ' ');" +
+            "  if (singleLine) { return text.replace(/\\s+/g, ' ').trim(); }" +
+            "  return text.split(/\\r?\\n/).map(function (line) { return line.replace(/[^\\S\\n]+/g, ' ').trim(); })" +
+            "    .filter(function (line) { return line; }).join('\\n');" +
+            "};" +
+            "var text = normalize(el.innerText || '', false);" +
+            "if (text) { return text; }" +
+            "text = normalize(el.textContent || '', true);" +
+            "if (text) { return text; }" +
+            "var value = el.value !== undefined && el.value !== null ? String(el.value) : '';" +
+            "return value.trim() ? value : '';" +
+            "}";
+
+    /**
+     * JS function (element, name) returning the property if it exists, the attribute otherwise, as
+     * WebElement.getAttribute() does
+     */
+    static final String ATTRIBUTE = "function (el, name) {" +
+            "var property = el[name];" +
+            "if (property !== undefined && property !== null && typeof property !== 'object' && typeof property !== 'function') {" +
+            "  return String(property); }" +
+            "return el.getAttribute(name);" +
+            "}";
+
+    /**
+     * JS function (actual, expected, condition) evaluating a Wait.AttributeCondition, false if actual is null
+     */
+    static final String MATCHES = "function (actual, expected, condition) {" +
+            "if (actual === null || actual === undefined) { return false; }" +
+            "switch (condition) {" +
+            "  case 'EQUALS': return actual === expected;" +
+            "  case 'NOT_EQUALS': return actual !== expected;" +
+            "  case 'CONTAINS': return actual.indexOf(expected) >= 0;" +
+            "  case 'NOT_CONTAINS': return actual.indexOf(expected) < 0;" +
+            "  default: return false;" +
+            "}" +
+            "}";
+
+    /**
+     * JS function () returning the DOM generation token of the current document: a random document id and the number of
+     * mutation batches observed since the token was first requested. The token changes whenever the DOM changes and
+     * when a new document is loaded.
+     */
+    static final String GENERATION = "function () {" +
+            "var d = document, g = d.__skynetGeneration;" +
+            "if (!g) {" +
+            "  g = d.__skynetGeneration = {id: Math.random().toString(36).slice(2), count: 0};" +
+            "  new MutationObserver(function () { g.count++; })" +
+            "    .observe(d, {subtree: true, childList: true, attributes: true, characterData: true});" +
+            "}" +
+            "return g.id + ':' + g.count;" +
+            "}";
+
+    /**
+     * JS var declarations of locate, text, textOrValue, attribute and matches, for page scripts evaluating conditions
+     */
+    static final String CONDITION_HELPERS = "var locate = " + LOCATE + ";" +
+            "var text = " + TEXT + ";" +
+            "var textOrValue = " + TEXT_OR_VALUE + ";" +
+            "var attribute = " + ATTRIBUTE + ";" +
+            "var matches = " + MATCHES + ";";
+
+    /**
+     * JS function (using, value, firstOnly, known) returning the matches and the DOM generation token, or only
+     * {unchanged: true} if the token is still the known one
+     */
+    private static final String FIND_VISIBLE = "function (using, value, firstOnly, known) {" +
+            "var generation = currentGeneration();" +
+            "if (known && known === generation) { return {unchanged: true, generation: generation}; }" +
+            "var elements = locate(using, value);" +
+            "if (elements === null) { return null; }" +
+            "var visible = [], indexes = [];" +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  if (isDisplayed(elements[i])) { visible.push(elements[i]); indexes.push(i); if (firstOnly) { break; } }" +
+            "}" +
+            "return {count: elements.length, first: elements.length ? elements[0] : null, visible: visible, indexes: indexes, " +
+            "generation: generation};" +
+            "}";
+
+    private static String isDisplayedAtom = null;
+    private static boolean isDisplayedLoaded = false;
+    private static boolean findVisibleRegistered = false;
+
+    /**
+     * Gets the remote parameters of the By, if it can be located through a script
+     *
+     * @param by - selenium By
+     * @return - [using, value] or null
+     */
+    static Object[] parameters (By by) {
+        if (!(by instanceof By.Remotable)) {
+            return null;
+        }
+
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        switch (parameters.using()) {
+            case "css selector":
+            case "id":
+            case "name":
+            case "class name":
+            case "tag name":
+            case "link text":
+            case "partial link text":
+            case "xpath":
+                return new Object[]{parameters.using(), String.valueOf(parameters.value())};
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Finds the elements matching the By and keeps the displayed ones, in a single script execution.
+     * Displayed has the same meaning as WebElement.isDisplayed() since the same browser atom is used.
+     *
+     * @param driver    - web driver
+     * @param by        - selenium By
+     * @param firstOnly - if true, stops at the first displayed element
+     * @param known     - DOM generation token of a previous result, the elements are not located again if the DOM did
+     *                  not change since (see VisibleElements.unchanged), null to always locate them
+     * @return - result or null if the By can not be located through a script
+     */
+    @SuppressWarnings(value = "unchecked")
+    static VisibleElements findVisible (WebDriver driver, By by, boolean firstOnly, String known) {
+        Object[] parameters = parameters(by);
+        if (parameters == null || !registerFindVisible()) {
+            return null;
+        }
+
+        Object result;
+        try {
+            result = PageScripts.call(driver, "findVisible", parameters[0], parameters[1], firstOnly, known);
+        } catch (StaleElementReferenceException e) {
+            throw e;
+        } catch (WebDriverException | ClassCastException e) {
+            Logger.debug("Unable to find visible elements through script, falling back to WebDriver: " + e.getMessage());
+            return null;
+        }
+
+        if (!(result instanceof Map)) {
+            return null;
+        }
+
+        Map<String, Object> map = (Map<String, Object>) result;
+        if (Boolean.TRUE.equals(map.get("unchanged"))) {
+            return new VisibleElements(0, null, Collections.emptyList(), Collections.emptyList(),
+                    (String) map.get("generation"), true);
+        }
+        List<WebElement> visible = new ArrayList<>();
+        for (Object element : (List<Object>) map.get("visible")) {
+            visible.add((WebElement) element);
+        }
+        List<Integer> indexes = new ArrayList<>();
+        for (Object index : (List<Object>) map.get("indexes")) {
+            indexes.add(((Number) index).intValue());
+        }
+        return new VisibleElements(((Number) map.get("count")).intValue(), (WebElement) map.get("first"), visible, indexes,
+                (String) map.get("generation"), false);
+    }
+
+    /**
+     * Registers the find-visible page script, built around the isDisplayed atom shipped with selenium
+     *
+     * @return - false if the atom is not on the classpath
+     */
+    private static synchronized boolean registerFindVisible () {
+        if (!findVisibleRegistered) {
+            String atom = getIsDisplayedAtom();
+            if (atom == null) {
+                return false;
+            }
+            PageScripts.register("findVisible", withIsDisplayed(atom, "var locate = " + LOCATE + ";" +
+                    "var currentGeneration = " + GENERATION + ";", FIND_VISIBLE));
+            findVisibleRegistered = true;
+        }
+        return true;
+    }
+
+    /**
+     * Wraps a page script function so that it closes over the isDisplayed atom and its other dependencies
+     *
+     * @param atom         - isDisplayed atom
+     * @param dependencies - JS var declarations used by the function
+     * @param function     - JS function
+     * @return - JS expression evaluating to the function
+     */
+    static String withIsDisplayed (String atom, String dependencies, String function) {
+        return "(function () { var isDisplayed = " + atom + ";" + dependencies + "return " + function + "; })()";
+    }
+
+    /**
+     * Gets the isDisplayed atom shipped with selenium, a JS function (element) used by WebElement.isDisplayed()
+     *
+     * @return - atom or null if it is not on the classpath
+     */
+    static synchronized String getIsDisplayedAtom () {
+        if (!isDisplayedLoaded) {
+            isDisplayedAtom = loadResource("/org/openqa/selenium/remote/isDisplayed.js");
+            isDisplayedLoaded = true;
+        }
+        return isDisplayedAtom;
+    }
+
+    /**
+     * Reads a classpath resource
+     *
+     * @param path - resource path
+     * @return - resource content or null if it does not exist
+     */
+    static String loadResource (String path) {
+        try (InputStream input = ScriptLocators.class.getResourceAsStream(path)) {
+            if (input == null) {
+                Logger.warn("Script resource not found: " + path);
+                return null;
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Logger.warn("Unable to read script resource " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static final class VisibleElements {
+        final int count;
+        final WebElement first;
+        final List<WebElement> visible;
+        /**
+         * Index of each visible element among all the matches
+         */
+        final List<Integer> indexes;
+        /**
+         * DOM generation token read before locating the elements
+         */
+        final String generation;
+        /**
+         * True if the DOM generation token was the known one, the elements were not located
+         */
+        final boolean unchanged;
+
+        private VisibleElements (int count, WebElement first, List<WebElement> visible, List<Integer> indexes,
+                                 String generation, boolean unchanged) {
+            this.count = count;
+            this.first = first;
+            this.visible = Collections.unmodifiableList(visible);
+            this.indexes = Collections.unmodifiableList(indexes);
+            this.generation = generation;
+            this.unchanged = unchanged;
+        }
+    }
+}
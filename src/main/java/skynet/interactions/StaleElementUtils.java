@@ -1,17 +1,32 @@
 package skynet.interactions;
 
-import net.serenitybdd.core.Serenity;
 import org.openqa.selenium.By;
 import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
+import skynet.drivers.Drivers;
 import skynet.utils.Logger;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 
+/**
+ * Finds stale elements again.
+ * <p>
+ * Elements found through Elements are found again by replaying their LocatorChain. Elements found by other means fall
+ * back to parsing the locators out of WebElement.toString().
+ * </p>
+ * The optional params are the index of the element among the matches of its last locator (Integer) and whether to
+ * return the parent of the element instead (Boolean).
+ */
 public class StaleElementUtils {
     public static WebElement refreshElement(WebElement elem, Object... params) {
+        LocatorChain chain = LocatorChain.get(elem);
+        if (chain != null) {
+            return replay(chain, params);
+        }
+
         Object refreshedElem = null;
         try {
             String[] locators = elem.toString().split("->");
@@ -27,7 +42,7 @@ public class StaleElementUtils {
                 if (leftBracketsCount - rightBracketscount == 1) { value = value + "]"; }
 
                 if (refreshedElem == null) {
-                    refreshedElem = Serenity.getDriver();
+                    refreshedElem = Drivers.get();
                 } else {
                     refreshedElem = getWebElement(refreshedElem, key, value, params);
                 }
@@ -40,35 +55,33 @@ public class StaleElementUtils {
         return (WebElement) refreshedElem;
     }
 
-    @SuppressWarnings(value = "all")
     public static WebElement refreshElement(By by, Object... params) {
-        Object refreshedElem = null;
-        try {
-            String[] locators = Elements.findElement(by).toString().split("->");
-            for (String s : locators) {
-                String newLocator = s.trim().replaceAll("^\\[+", "").replaceAll("]+$", "");
-                String[] parts = newLocator.split(": ");
-                String key = parts[0];
-                String value = parts[1];
-
-                int leftBracketsCount = value.length() - value.replace("[", "").length();
-                int rightBracketscount = value.length() - value.replace("]", "").length();
+        return replay(LocatorChain.of(by, 0), params);
+    }
 
-                if (leftBracketsCount - rightBracketscount == 1) { value = value + "]"; }
+    /**
+     * Finds the element again by replaying its locator chain
+     *
+     * @param chain  - chain used to find the element
+     * @param params - optional index (Integer) and getParent (Boolean)
+     * @return - refreshed element, null if it can not be found
+     */
+    private static WebElement replay(LocatorChain chain, Object... params) {
+        if (params.length > 0 && params[0] != null) {
+            chain = chain.withIndex((Integer) params[0]);
+        }
 
-                if (refreshedElem == null) {
-                    refreshedElem = Serenity.getDriver();
-                } else {
-                    refreshedElem = getWebElement(refreshedElem, key, value, params);
-                }
+        try {
+            WebElement element = chain.resolve(Drivers.get());
+            if (params.length > 1 && Boolean.TRUE.equals(params[1])) {
+                element = LocatorChain.record(element.findElement(By.xpath("..")), chain.child(By.xpath(".."), 0));
             }
-        } catch (Exception e) {
+            Logger.info("Refreshed element: " + chain);
+            return element;
+        } catch (WebDriverException e) {
             Logger.error("Can not refresh element: \n EXCEPTION: " + e.getMessage());
+            return null;
         }
-
-        assert refreshedElem != null;
-        Logger.info("Refreshed element: " + refreshedElem.toString());
-        return (WebElement) refreshedElem;
     }
 
     public static boolean isElementStale(WebElement element) {
@@ -0,0 +1,332 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import skynet.drivers.Drivers;
+import skynet.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads HTML tables and ARIA grids in the browser, instead of finding every row and cell through WebDriver.
+ * <p>
+ * Headers are the th cells of the thead (or of the first row) for HTML tables, and the columnheader cells for elements
+ * with role grid/table. Header texts are read like cells and joined into a single line, e.g. "First&lt;br&gt;Name" is
+ * "First Name". Empty or missing headers are named "column N", N starting at 1, and repeated headers get a
+ * " (N)" suffix from their second occurrence on, e.g. "Total", "Total (2)". Cells are read with the same
+ * text rule as Elements.getText: rendered text, else textContent, else the value of an input inside the cell. Column
+ * spans are not expanded, cells are mapped to headers by position.
+ * </p>
+ * e.g:
+ * <p>
+ * Tables.Table users = Tables.read("UsersTable", "Name", "Email");
+ * for (Map&lt;String, String&gt; row : users.getRows()) { ... }
+ * </p>
+ * Very large grids can be streamed in pages, each page being one script execution:
+ * <p>
+ * Iterator&lt;Map&lt;String, String&gt;&gt; rows = Tables.stream("UsersTable", "Name");
+ * </p>
+ */
+public abstract class Tables {
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    /**
+     * JS function (table, columns, start, count, known) returning {headers, missing, rows, total}: all the headers, the
+     * requested columns not found, and the rows from start (at most count, all if count is negative), each row holding
+     * the cells of the requested columns (all columns if columns is null). The headers are computed unless known, i.e.
+     * returned by a previous call on the same table.
+     */
+    private static final String READ_TABLE = "function (table, columns, start, count, known) {" +
+            "var list = function (nodes) { return Array.prototype.slice.call(nodes); };" +
+            "var role = table.getAttribute('role');" +
+            "var aria = table.tagName.toLowerCase() !== 'table' || role === 'grid' || role === 'treegrid';" +
+            "var rows, headerCells = [];" +
+            "if (aria) {" +
+            "  rows = list(table.querySelectorAll('[role=row]'));" +
+            "  var headerRow = rows.filter(function (r) { return r.querySelector('[role=columnheader]'); })[0];" +
+            "  if (headerRow) { headerCells = list(headerRow.querySelectorAll('[role=columnheader]')); }" +
+            "  rows = rows.filter(function (r) { return r !== headerRow; });" +
+            "  var cells = function (r) { return list(r.querySelectorAll('[role=gridcell],[role=cell],[role=rowheader]')); };" +
+            "} else {" +
+            "  rows = list(table.rows);" +
+            "  var head = table.tHead && table.tHead.rows.length ? table.tHead.rows[table.tHead.rows.length - 1] : null;" +
+            "  if (!head && rows.length && rows[0].querySelector('th') && !rows[0].querySelector('td')) { head = rows[0]; }" +
+            "  if (head) { headerCells = list(head.cells); }" +
+            "  rows = rows.filter(function (r) { return r !== head && !(table.tHead && r.parentNode === table.tHead); });" +
+            "  var cells = function (r) { return list(r.cells); };" +
+            "}" +
+            "var headers = known;" +
+            "if (!headers) {" +
+            "  headers = headerCells.map(function (c, i) { var h = textOrValue(c).replace(/\\s+/g, ' '); " +
+            "    return h || 'column ' + (i + 1); });" +
+            "  var width = rows.reduce(function (w, r) { return Math.max(w, cells(r).length); }, 0);" +
+            "  for (var h = headers.length; h < width; h++) { headers.push('column ' + (h + 1)); }" +
+            "  var seen = {};" +
+            "  headers = headers.map(function (h) {" +
+            "    var name = h, n = 1;" +
+            "    while (seen.hasOwnProperty(name)) { name = h + ' (' + (++n) + ')'; }" +
+            "    seen[name] = true; return name;" +
+            "  });" +
+            "}" +
+            "var indexes = [], missing = [];" +
+            "if (columns) {" +
+            "  for (var i = 0; i < columns.length; i++) {" +
+            "    var index = headers.indexOf(columns[i]);" +
+            "    if (index < 0) { missing.push(columns[i]); } indexes.push(index);" +
+            "  }" +
+            "}" +
+            "var total = rows.length, end = count < 0 ? total : Math.min(total, start + count), result = [];" +
+            "for (var r = start; r < end; r++) {" +
+            "  var values = cells(rows[r]).map(function (c) {" +
+            "    var text = textOrValue(c);" +
+            "    if (!text) { var input = c.querySelector('input,select,textarea'); if (input) { text = textOrValue(input); } }" +
+            "    return text;" +
+            "  });" +
+            "  result.push(columns ? indexes.map(function (i) { return i < 0 || i >= values.length ? null : values[i]; }) : values);" +
+            "}" +
+            "return {headers: headers, missing: missing, rows: result, total: total};" +
+            "}";
+
+    static {
+        PageScripts.register("readTable", "(function () { var textOrValue = " + ScriptLocators.TEXT_OR_VALUE + ";" +
+                "return " + READ_TABLE + "; })()");
+    }
+
+    /**
+     * Reads the whole table in a single script execution
+     *
+     * @param locator - table locator from repo
+     * @param columns - headers of the columns to read, all columns if none is provided
+     * @return - headers and rows
+     * @throws Exception - if the table is not found or a column does not exist
+     */
+    public static Table read (String locator, String... columns) throws Exception {
+        return read(Elements.findElement(locator), columns);
+    }
+
+    /**
+     * Reads the whole table in a single script execution
+     *
+     * @param by      - table by
+     * @param columns - headers of the columns to read, all columns if none is provided
+     * @return - headers and rows
+     * @throws Exception - if the table is not found or a column does not exist
+     */
+    public static Table read (By by, String... columns) throws Exception {
+        return read(Elements.findElement(by), columns);
+    }
+
+    /**
+     * Reads the whole table in a single script execution
+     *
+     * @param table   - table or grid element
+     * @param columns - headers of the columns to read, all columns if none is provided
+     * @return - headers and rows
+     * @throws Exception - if a column does not exist
+     */
+    public static Table read (WebElement table, String... columns) throws Exception {
+        Page page = readPage(table, columns, 0, -1, null);
+        return new Table(page.headers, page.toMaps());
+    }
+
+    /**
+     * Streams the rows of the table, reading them in pages of 500 rows
+     *
+     * @param locator - table locator from repo
+     * @param columns - headers of the columns to read, all columns if none is provided
+     * @return - rows iterator
+     * @throws Exception - if the table is not found or a column does not exist
+     */
+    public static Iterator<Map<String, String>> stream (String locator, String... columns) throws Exception {
+        return stream(Elements.findElement(locator), DEFAULT_PAGE_SIZE, columns);
+    }
+
+    /**
+     * Streams the rows of the table, reading them in pages of 500 rows
+     *
+     * @param by      - table by
+     * @param columns - headers of the columns to read, all columns if none is provided
+     * @return - rows iterator
+     * @throws Exception - if the table is not found or a column does not exist
+     */
+    public static Iterator<Map<String, String>> stream (By by, String... columns) throws Exception {
+        return stream(Elements.findElement(by), DEFAULT_PAGE_SIZE, columns);
+    }
+
+    /**
+     * Streams the rows of the table, each page of rows being read in one script execution.
+     * The headers are computed with the first page only.
+     * The table must not change while it is streamed.
+     *
+     * @param table    - table or grid element
+     * @param pageSize - number of rows read at once
+     * @param columns  - headers of the columns to read, all columns if none is provided
+     * @return - rows iterator
+     * @throws Exception - if a column does not exist
+     */
+    public static Iterator<Map<String, String>> stream (WebElement table, int pageSize, String... columns) throws Exception {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        return new RowIterator(table, pageSize, columns, readPage(table, columns, 0, pageSize, null));
+    }
+
+    /**
+     * Reads a page of rows
+     *
+     * @param known - all the headers of the table returned with a previous page, null to compute them
+     */
+    @SuppressWarnings(value = "unchecked")
+    private static Page readPage (WebElement table, String[] columns, int start, int count, List<String> known)
+            throws Exception {
+        List<String> requested = columns == null || columns.length == 0 ? null : Arrays.asList(columns);
+        Map<String, Object> result = (Map<String, Object>) PageScripts.call(Drivers.get(), "readTable", table,
+                requested, start, count, known);
+
+        List<String> missing = (List<String>) result.get("missing");
+        if (!missing.isEmpty()) {
+            Logger.exception(String.format("Columns %s not found in table, available columns: %s", missing,
+                    result.get("headers")));
+        }
+
+        List<String> all = new ArrayList<>((List<String>) result.get("headers"));
+        return new Page(all, requested == null ? all : new ArrayList<>(requested),
+                (List<List<String>>) result.get("rows"), ((Number) result.get("total")).intValue());
+    }
+
+    /**
+     * Headers and rows of a table, each row mapping the headers to the cell texts.
+     * A cell is null if its row has fewer cells than headers.
+     */
+    public static final class Table {
+        private final List<String> headers;
+        private final List<Map<String, String>> rows;
+
+        private Table (List<String> headers, List<Map<String, String>> rows) {
+            this.headers = Collections.unmodifiableList(headers);
+            this.rows = Collections.unmodifiableList(rows);
+        }
+
+        public List<String> getHeaders () {
+            return headers;
+        }
+
+        public List<Map<String, String>> getRows () {
+            return rows;
+        }
+
+        public int size () {
+            return rows.size();
+        }
+
+        /**
+         * @param header - column header
+         * @return - cells of the column, from the first row to the last
+         */
+        public List<String> column (String header) {
+            if (!headers.contains(header)) {
+                throw new IllegalArgumentException("Column not found: " + header + ", available columns: " + headers);
+            }
+            List<String> column = new ArrayList<>(rows.size());
+            for (Map<String, String> row : rows) {
+                column.add(row.get(header));
+            }
+            return column;
+        }
+
+        @Override
+        public String toString () {
+            return String.format("Table %s, %d row(s)", headers, rows.size());
+        }
+    }
+
+    private static final class Page {
+        /**
+         * All the headers of the table
+         */
+        private final List<String> all;
+        /**
+         * Headers of the columns read
+         */
+        private final List<String> headers;
+        private final List<List<String>> rows;
+        private final int total;
+
+        private Page (List<String> all, List<String> headers, List<List<String>> rows, int total) {
+            this.all = all;
+            this.headers = headers;
+            this.rows = rows;
+            this.total = total;
+        }
+
+        private List<Map<String, String>> toMaps () {
+            List<Map<String, String>> maps = new ArrayList<>(rows.size());
+            for (List<String> row : rows) {
+                maps.add(toMap(row));
+            }
+            return maps;
+        }
+
+        private Map<String, String> toMap (List<String> row) {
+            Map<String, String> map = new LinkedHashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                map.put(headers.get(i), i < row.size() ? row.get(i) : null);
+            }
+            return map;
+        }
+    }
+
+    private static final class RowIterator implements Iterator<Map<String, String>> {
+        private final WebElement table;
+        private final int pageSize;
+        private final String[] columns;
+        private Page page;
+        private int start = 0;
+        private int position = 0;
+
+        private RowIterator (WebElement table, int pageSize, String[] columns, Page first) {
+            this.table = table;
+            this.pageSize = pageSize;
+            this.columns = columns;
+            this.page = first;
+        }
+
+        @Override
+        public boolean hasNext () {
+            if (position < page.rows.size()) {
+                return true;
+            }
+
+            int next = start + page.rows.size();
+            if (page.rows.isEmpty() || next >= page.total) {
+                return false;
+            }
+
+            try {
+                page = readPage(table, columns, next, pageSize, page.all);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            start = next;
+            position = 0;
+            return !page.rows.isEmpty();
+        }
+
+        @Override
+        public Map<String, String> next () {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.toMap(page.rows.get(position++));
+        }
+    }
+}
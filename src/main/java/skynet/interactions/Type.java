@@ -1,9 +1,16 @@
 package skynet.interactions;
 
-import net.serenitybdd.core.Serenity;
+import org.openqa.selenium.HasCapabilities;
 import org.openqa.selenium.Keys;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnsupportedCommandException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+import skynet.drivers.Drivers;
 import skynet.extensions.StringExtensions;
 import skynet.utils.Logger;
 
@@ -13,12 +20,58 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.event.KeyEvent;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Callable;
 
 public abstract class Type {
 
-    private static final WebDriver driver = Serenity.getDriver();
     private static final int timeout = 5;
 
+    /**
+     * JS function (element, text) setting the value of an input or textarea through the native value setter, so that
+     * framework bound fields see the change, firing input and change events. Returns the resulting value, or null if
+     * the element can not be set this way.
+     */
+    static final String SET_VALUE = "function (el, text) {" +
+            "var tag = el.tagName ? el.tagName.toLowerCase() : '';" +
+            "if ((tag !== 'input' && tag !== 'textarea') || el.disabled || el.readOnly) { return null; }" +
+            "var prototype = tag === 'input' ? HTMLInputElement.prototype : HTMLTextAreaElement.prototype;" +
+            "var setter = Object.getOwnPropertyDescriptor(prototype, 'value').set;" +
+            "el.focus();" +
+            "setter.call(el, text);" +
+            "el.dispatchEvent(new Event('input', {bubbles: true}));" +
+            "el.dispatchEvent(new Event('change', {bubbles: true}));" +
+            "return el.value;" +
+            "}";
+
+    /**
+     * JS function (element) returning the value of the field, or its text content if it has no value
+     */
+    private static final String FIELD_TEXT = "function (el) {" +
+            "return el.value !== undefined && el.value !== null ? String(el.value) : (el.textContent || '');" +
+            "}";
+
+    private static volatile boolean fast = false;
+
+    static {
+        PageScripts.register("setValue", SET_VALUE);
+        PageScripts.register("fieldText", FIELD_TEXT);
+    }
+
+    public static boolean isFast() {
+        return fast;
+    }
+
+    /**
+     * Enables fast typing: text typed without delay is set in a single script execution through the field's native
+     * value setter, firing input and change events, and the resulting value is read back by the same script.
+     * If the value does not match (e.g. a field formatting its input), the text is typed with sendKeys as usual.
+     *
+     * @param enabled - true to set values through script, false to always type with sendKeys
+     */
+    public static void setFast(boolean enabled) {
+        fast = enabled;
+    }
+
     /**
      * Text field replace text using keyboard
      *
@@ -93,47 +146,36 @@ public abstract class Type {
      * @param delay        - types in with delay if provided
      * @throws Exception - throws various exceptions
      */
+    @SuppressWarnings(value = "try")
     public static void text(String locator, String text, boolean removeWhites, long... delay) throws Exception {
-        Wait.waitForClickable(locator, timeout,  true);
-
-        if (getCurrentText(Elements.findElement(locator)).trim().equals(text)) {
-            //Current text in adapter already equals value to set it to.
-            return;
-        }
+        try (Deadline ignored = Deadline.step()) {
+            Wait.waitForClickable(locator, timeout,  true);
 
-        if (text == null) {
-            text = "";
-        }
-        String adaptorCurrentText = getCurrentText(locator);
-        if (adaptorCurrentText.equals(text)) {
-            //Current text in adapter already equals value to set it to.
-            return;
-        }
-
-        if (delay.length > 0) {
-            setCurrentText(locator, text, delay[0]);
-        }
-        else {
-            setCurrentText(locator, text);
-        }
+            String adaptorCurrentText = getCurrentText(locator);
+            if (adaptorCurrentText.trim().equals(text)) {
+                //Current text in adapter already equals value to set it to.
+                return;
+            }
 
-        //wait for text to show up in adapter
-        final int timeoutMilliseconds = 10000;
-        int timeoutRemainingMilliseconds = timeoutMilliseconds;
-        int delayMilliseconds = 100;
-        while (timeoutRemainingMilliseconds > 0) {
-            adaptorCurrentText = removeWhites ? StringExtensions.removeWhiteSpaces(getCurrentText(locator)) : getCurrentText(locator);
-            if (adaptorCurrentText.contains(text)) {
-                break;
+            if (text == null) {
+                text = "";
+            }
+            if (adaptorCurrentText.equals(text)) {
+                //Current text in adapter already equals value to set it to.
+                return;
             }
 
-            Thread.sleep(delayMilliseconds);
-            timeoutRemainingMilliseconds -= delayMilliseconds;
-            if (timeoutRemainingMilliseconds <= 0) {
-                Logger.exception(String.format("The adapter's value is not the expected string \"%s\" (between the quotes) after setting the adapter's value to the expected " +
-                                                       "string and waiting for about %d seconds to elapse. Actual text from adapter (between the quotes):\"%s\". Adapter: %s.",
-                                               text, timeoutMilliseconds / 1000, adaptorCurrentText, locator));
+            if (delay.length > 0) {
+                setCurrentText(locator, text, delay[0]);
+            }
+            else if (setCurrentText(locator, text)) {
+                //the value was read back by the setValue script
+                return;
             }
+
+            //wait for text to show up in adapter
+            waitForText(text, () -> removeWhites ? StringExtensions.removeWhiteSpaces(getCurrentText(locator)) : getCurrentText(locator),
+                        () -> locator);
         }
     }
 
@@ -145,43 +187,33 @@ public abstract class Type {
      * @param checkText - if true, it checks the entered text after type is finished
      * @throws Exception - throws exception if element if not found or text after type if not as text var
      */
+    @SuppressWarnings(value = "try")
     public static void text(String locator, String text, boolean checkText) throws Exception {
-        Wait.waitForClickable(locator, timeout,  true);
+        try (Deadline ignored = Deadline.step()) {
+            Wait.waitForClickable(locator, timeout,  true);
 
-        if (getCurrentText(Elements.findElement(locator)).trim().equals(text)) {
-            //Current text in adapter already equals value to set it to.
-            return;
-        }
+            String adaptorCurrentText = getCurrentText(locator);
+            if (adaptorCurrentText.trim().equals(text)) {
+                //Current text in adapter already equals value to set it to.
+                return;
+            }
 
-        if (text == null) {
-            text = "";
-        }
-        String adaptorCurrentText = getCurrentText(locator);
-        if (adaptorCurrentText.equals(text)) {
-            //Current text in adapter already equals value to set it to.
-            return;
-        }
+            if (text == null) {
+                text = "";
+            }
+            if (adaptorCurrentText.equals(text)) {
+                //Current text in adapter already equals value to set it to.
+                return;
+            }
 
-        setCurrentText(locator, text);
-
-        //wait for text to show up in adapter
-        if (checkText) {
-            final int timeoutMilliseconds = 10000;
-            int timeoutRemainingMilliseconds = timeoutMilliseconds;
-            int delayMilliseconds = 100;
-            while (timeoutRemainingMilliseconds > 0) {
-                adaptorCurrentText = getCurrentText(locator);
-                if (adaptorCurrentText.contains(text)) {
-                    break;
-                }
+            if (setCurrentText(locator, text)) {
+                //the value was read back by the setValue script
+                return;
+            }
 
-                Thread.sleep(delayMilliseconds);
-                timeoutRemainingMilliseconds -= delayMilliseconds;
-                if (timeoutRemainingMilliseconds <= 0) {
-                    Logger.exception(String.format("The adapter's value is not the expected string \"%s\" (between the quotes) after setting the adapter's value to the expected " +
-                                                           "string and waiting for about %d seconds to elapse. Actual text from adapter (between the quotes):\"%s\". Adapter: %s.",
-                                                   text, timeoutMilliseconds / 1000, adaptorCurrentText, locator));
-                }
+            //wait for text to show up in adapter
+            if (checkText) {
+                waitForText(text, () -> getCurrentText(locator), () -> locator);
             }
         }
     }
@@ -200,47 +232,62 @@ public abstract class Type {
      * @param delay - types with delay if set
      * @throws Exception - throws various exceptions
      */
+    @SuppressWarnings(value = "try")
     public static void text(WebElement textbox, String text, long... delay) throws Exception {
-        Wait.waitForClickable(textbox, 10, true);
+        try (Deadline ignored = Deadline.step()) {
+            Wait.waitForClickable(textbox, 10, true);
 
-        if (getCurrentText(textbox).trim().equals(text)) {
-            //Current text in adapter already equals value to set it to.
-            return;
-        }
-
-        if (text == null) {
-            text = "";
-        }
-        String adaptorCurrentText = getCurrentText(textbox);
-        if (adaptorCurrentText.equals(text)) {
-            //Current text in adapter already equals value to set it to.
-            return;
-        }
-
-        if (delay.length > 0) {
-            setCurrentText(textbox, text, delay[0]);
-        }
-        else {
-            setCurrentText(textbox, text, 1);
-        }
+            String adaptorCurrentText = getCurrentText(textbox);
+            if (adaptorCurrentText.trim().equals(text)) {
+                //Current text in adapter already equals value to set it to.
+                return;
+            }
 
-        //wait for text to show up in adapter
-        final int timeoutMilliseconds = 10000;
-        int timeoutRemainingMilliseconds = timeoutMilliseconds;
-        int delayMilliseconds = 100;
-        while (timeoutRemainingMilliseconds > 0) {
-            adaptorCurrentText = StringExtensions.removeWhiteSpaces(getCurrentText(textbox));
-            if (adaptorCurrentText.contains(text)) {
-                break;
+            if (text == null) {
+                text = "";
+            }
+            if (adaptorCurrentText.equals(text)) {
+                //Current text in adapter already equals value to set it to.
+                return;
             }
 
-            Thread.sleep(delayMilliseconds);
-            timeoutRemainingMilliseconds -= delayMilliseconds;
-            if (timeoutRemainingMilliseconds <= 0) {
-                Logger.exception(String.format("The adapter's value is not the expected string \"%s\" (between the quotes) after setting the adapter's value to the expected " +
-                                                       "string and waiting for about %d seconds to elapse. Actual text from adapter (between the quotes):\"%s\". Adapter: %s.",
-                                               text, timeoutMilliseconds / 1000, adaptorCurrentText, Elements.getXpath(textbox)));
+            if (delay.length > 0) {
+                setCurrentText(textbox, text, delay[0]);
+            }
+            else if (setTextFast(textbox, text)) {
+                //the value was read back by the setValue script
+                return;
+            }
+            else {
+                setCurrentText(textbox, text, 1);
             }
+
+            //wait for text to show up in adapter
+            waitForText(text, () -> StringExtensions.removeWhiteSpaces(getCurrentText(textbox)), () -> Elements.getXpath(textbox));
+        }
+    }
+
+    /**
+     * Waits for the typed text to show up in the adapter
+     *
+     * @param text        - expected text
+     * @param currentText - reads the current text of the adapter
+     * @param adapter     - describes the adapter in the error message
+     * @throws Exception - throws exception if the text does not show up within the timeout
+     */
+    private static void waitForText(String text, Callable<String> currentText, Callable<String> adapter) throws Exception {
+        final Duration timeout = Deadline.timeout(Duration.ofSeconds(10));
+        final String[] adaptorCurrentText = {""};
+        try {
+            WaitEngine.until(() -> {
+                adaptorCurrentText[0] = currentText.call();
+                return adaptorCurrentText[0].contains(text);
+            }, timeout);
+        }
+        catch (TimeoutException e) {
+            Logger.exception(String.format("The adapter's value is not the expected string \"%s\" (between the quotes) after setting the adapter's value to the expected " +
+                                                   "string and waiting for about %d seconds to elapse. Actual text from adapter (between the quotes):\"%s\". Adapter: %s.",
+                                           text, timeout.getSeconds(), adaptorCurrentText[0], adapter.call()));
         }
     }
 
@@ -248,14 +295,19 @@ public abstract class Type {
      * Helper method that actually types the text into the provided textbox
      * @param locator - textbox element locator
      * @param text - text to type in
+     * @return - true if the text was set in fast mode, its value being already verified
      * @throws Exception - throws various exceptions
      */
-    private static void setCurrentText(String locator, String text) throws Exception {
+    private static boolean setCurrentText(String locator, String text) throws Exception {
         WebElement element = Elements.findElement(locator);
         Wait.waitForClickable(element, 10, true);
 
         isValidAdapter(element);
 
+        if (setTextFast(element, text)) {
+            return true;
+        }
+
         try {
             Logger.info("Sending keys: " + text);
             Clicks.click(element);
@@ -267,6 +319,7 @@ public abstract class Type {
         catch (NullPointerException ex) {
             Logger.exception(String.format("Could not type text '%s' into text box. \nException: %s", text, ex.getMessage()));
         }
+        return false;
     }
 
     /**
@@ -291,18 +344,26 @@ public abstract class Type {
             element.click();
             pause(500);
 
-            for (int i = 0; i < text.length(); i++) {
-                char c = text.charAt(i);
-                String s = String.valueOf(c);
-                element.sendKeys(s);
-                pause(delayMilliseconds);
-            }
+            typeWithDelay(element, text, delayMilliseconds);
         }
         catch (NullPointerException ex) {
             Logger.exception(String.format("Could not type text '%s' into text box. \nException: %s", text, ex.getMessage()));
         }
     }
 
+    /**
+     * Sets the text without waiting for it to show up, for callers that read the value back themselves (e.g. Forms)
+     *
+     * @param textbox - webelement textbox
+     * @param text    - text to set
+     * @throws Exception - throws various exceptions
+     */
+    static void setText(WebElement textbox, String text) throws Exception {
+        if (!setTextFast(textbox, text)) {
+            setCurrentText(textbox, text, 1);
+        }
+    }
+
     /**
      * Helper method that actually types the text into the provided textbox with delay
      * @param textbox - webelement textbox
@@ -328,6 +389,69 @@ public abstract class Type {
         }
     }
 
+    /**
+     * Types the text into the focused element one character at a time, as a single action sequence: the pauses are
+     * part of the sequence and replayed by the browser, so the whole text costs one command.
+     * Falls back to one sendKeys per character if the driver does not support actions.
+     *
+     * @param element           - focused textbox, used by the fallback
+     * @param text              - text to type in
+     * @param delayMilliseconds - pause after each character
+     */
+    private static void typeWithDelay(WebElement element, String text, long delayMilliseconds) {
+        Actions actions = new Actions(Drivers.get());
+        Duration delay = Duration.ofMillis(delayMilliseconds);
+        for (int i = 0; i < text.length(); i = text.offsetByCodePoints(i, 1)) {
+            actions.sendKeys(text.substring(i, text.offsetByCodePoints(i, 1))).pause(delay);
+        }
+
+        try {
+            actions.perform();
+            return;
+        }
+        catch (UnsupportedCommandException e) {
+            Logger.debug("Actions not supported, typing one character at a time: " + e.getMessage());
+        }
+
+        for (int i = 0; i < text.length(); i = text.offsetByCodePoints(i, 1)) {
+            element.sendKeys(text.substring(i, text.offsetByCodePoints(i, 1)));
+            pause(delayMilliseconds);
+        }
+    }
+
+    /**
+     * Sets the text through the setValue page script if fast typing is enabled, and checks the resulting value
+     *
+     * @param element - input or textarea
+     * @param text    - text to set
+     * @return - true if the value was set and matches the text, false if it has to be typed
+     */
+    private static boolean setTextFast(WebElement element, String text) {
+        return fast && setValue(element, text);
+    }
+
+    /**
+     * Sets the value through the setValue page script and checks the resulting value
+     *
+     * @param element - input or textarea
+     * @param text    - text to set
+     * @return - true if the value was set and matches the text
+     */
+    private static boolean setValue(WebElement element, String text) {
+        try {
+            Object value = PageScripts.call(Drivers.get(), "setValue", element, text);
+            if (text.equals(value)) {
+                Logger.info("Set value: " + text);
+                return true;
+            }
+            Logger.debug(String.format("Value set through script is \"%s\" instead of \"%s\"", value, text));
+        }
+        catch (WebDriverException | ClassCastException e) {
+            Logger.debug("Unable to set the value through script: " + e.getMessage());
+        }
+        return false;
+    }
+
     /**
      * Using sleep :D:D:D
      * @param time - sleep time in millis
@@ -372,33 +496,84 @@ public abstract class Type {
     }
 
     /**
-     * It clears text from the given WebElement - which has to be either input or textarea - using the Keys
+     * It clears text from the given WebElement using the Keys, without relying on element.clear()
      * <p>
-     * Remarks: Looks like sometimes CTRL + A doesn't work and Selenium is not able to clear a pseudo-element. So this can
-     * be used instead of element.clear()
-     * <p>
-     * Be aware of the fact that pseudo-elements do not store a value, so this has to be used as a standalone solution
-     * (cannot be integrated in the existing setText methods) and only if you are working
-     * with that kind of element
+     * Remarks: Looks like sometimes element.clear() doesn't work and Selenium is not able to clear a pseudo-element. So
+     * this can be used instead of element.clear(). The text is cleared with select all + delete in a single action
+     * sequence, then with END + one BACK_SPACE per character, and finally through the native value setter, stopping as
+     * soon as the field is verified to be empty.
      *
      * @param locator - element locator from repo (contains By and selector)
-     * @throws InterruptedException - throws exception
+     * @throws Exception - throws exception if the element is not found or still has text after all the attempts
      */
+    @SuppressWarnings(value = "try")
     public static void retroClearText(String locator) throws Exception {
-        WebElement element = Elements.findElement(locator);
+        try (Deadline ignored = Deadline.step()) {
+            WebElement element = Elements.findElement(locator);
 
-        Clicks.click(element);
-        pause(500);
+            Clicks.click(element);
 
-        int count = 15;
-        element.sendKeys(Keys.END);
-        pause(500);
+            Keys modifier = isMac() ? Keys.COMMAND : Keys.CONTROL;
+            new Actions(Drivers.get()).keyDown(modifier).sendKeys("a").keyUp(modifier).sendKeys(Keys.BACK_SPACE).perform();
+            String current = getFieldText(element);
+            if (current.isEmpty()) {
+                return;
+            }
 
-        while (count > 0) {
-            element.sendKeys(Keys.BACK_SPACE);
-            pause(500);
-            count--;
+            Logger.debug(String.format("Select all did not clear the field, deleting %d character(s)", current.length()));
+            Actions delete = new Actions(Drivers.get()).sendKeys(Keys.END);
+            for (int i = 0; i < current.length(); i++) {
+                delete.sendKeys(Keys.BACK_SPACE);
+            }
+            delete.perform();
+            current = getFieldText(element);
+            if (current.isEmpty()) {
+                return;
+            }
+
+            if (setValue(element, "")) {
+                return;
+            }
+            Logger.exception(String.format("Could not clear the text of %s, current text: '%s'", locator, getFieldText(element)));
+        }
+    }
+
+    /**
+     * Reads the value of the field, or its text content for elements without a value (e.g. content editable)
+     */
+    private static String getFieldText(WebElement element) {
+        try {
+            Object text = PageScripts.call(Drivers.get(), "fieldText", element);
+            if (text instanceof String) {
+                return (String) text;
+            }
+        }
+        catch (StaleElementReferenceException e) {
+            throw e;
+        }
+        catch (WebDriverException | ClassCastException e) {
+            Logger.debug("Unable to read the field through script: " + e.getMessage());
+        }
+
+        String value = element.getAttribute("value");
+        return value != null ? value : element.getText();
+    }
+
+    private static boolean isMac() {
+        //the lazy handle implements every driver interface, the real driver tells what it supports
+        WebDriver driver = Drivers.current();
+        if (driver instanceof HasCapabilities) {
+            try {
+                Platform platform = ((HasCapabilities) driver).getCapabilities().getPlatformName();
+                if (platform != null) {
+                    return platform.is(Platform.MAC);
+                }
+            }
+            catch (WebDriverException e) {
+                Logger.debug("Unable to read the platform of the driver: " + e.getMessage());
+            }
         }
+        return System.getProperty("os.name", "").toLowerCase().contains("mac");
     }
 
     private static boolean isValidAdapter(WebElement element) throws Exception {
@@ -1,19 +1,38 @@
 package skynet.interactions;
 
 
-import net.serenitybdd.core.Serenity;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import skynet.drivers.Drivers;
+import skynet.drivers.NavigationEpoch;
 import skynet.utils.Logger;
 
 import java.time.Duration;
 import java.util.Date;
+import java.util.function.Function;
 
 public abstract class Wait {
-    private static final WebDriver driver = Serenity.getDriver();
-    private static By by;
+    private static volatile boolean eventDriven = false;
+
+    private static WebDriver driver () {
+        return Drivers.get();
+    }
+
+    public static boolean isEventDriven () {
+        return eventDriven;
+    }
+
+    /**
+     * Enables event driven waits for visibility, text and attribute changes.
+     * When enabled, the page is watched by a MutationObserver in a single async script instead of being polled. Waits
+     * that can not be observed (e.g. locator strategies not supported in the page) still fall back to polling.
+     *
+     * @param enabled - true to observe the page, false to poll it
+     */
+    public static void setEventDriven (boolean enabled) {
+        eventDriven = enabled;
+    }
 
     /**
      * Awaits for the provided element to be clickable within a given timeout.
@@ -26,8 +45,8 @@ public abstract class Wait {
      * @throws ElementNotInteractableException - throw
      */
     public static boolean waitForClickable(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
-        return wait(by, ExpectedConditions.elementToBeClickable(by), timeout, throwException);
+        By by = Elements.by(locator);
+        return wait("clickable", by, ExpectedConditions.elementToBeClickable(by), timeout, throwException);
     }
 
     /**
@@ -41,8 +60,8 @@ public abstract class Wait {
      * @throws ElementNotInteractableException - throw
      */
     public static boolean waitForClickable(WebElement el, int timeout, boolean throwException) throws Exception {
-        Wait.by = By.xpath(Elements.getAbsoluteXPath(el));
-        return wait(by, ExpectedConditions.elementToBeClickable(by), timeout, throwException);
+        By by = By.xpath(Elements.getAbsoluteXPath(el));
+        return wait("clickable", by, ExpectedConditions.elementToBeClickable(by), timeout, throwException);
     }
 
     /**
@@ -56,8 +75,8 @@ public abstract class Wait {
      * @throws Exception - throw
      */
     public static boolean waitForVisible(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
-        return wait(by, ExpectedConditions.visibilityOfElementLocated(by), timeout, throwException);
+        By by = Elements.by(locator);
+        return wait("visible", by, ExpectedConditions.visibilityOfElementLocated(by), t -> ObserverWaits.visible(by, t), timeout, throwException);
     }
 
     /**
@@ -66,7 +85,7 @@ public abstract class Wait {
      * @param by - selenium By
      */
     public static void waitForVisible(By by) {
-        wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by), 1000, true);
+        wait("visible", by, ExpectedConditions.visibilityOfElementLocated(by), t -> ObserverWaits.visible(by, t), 1000, true);
     }
 
     /**
@@ -77,7 +96,7 @@ public abstract class Wait {
      * @return - returns true if element becomes visible, false otherwise
      */
     public static boolean waitForVisible(By by, int timeout) {
-         return wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by), timeout, true);
+         return wait("visible", by, ExpectedConditions.visibilityOfElementLocated(by), t -> ObserverWaits.visible(by, t), timeout, true);
     }
 
     /**
@@ -89,7 +108,7 @@ public abstract class Wait {
      * @return - returns true if element becomes visible, false otherwise
      */
     public static boolean waitForVisible(By by, int timeout, boolean throwException) {
-        return wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by), timeout, throwException);
+        return wait("visible", by, ExpectedConditions.visibilityOfElementLocated(by), t -> ObserverWaits.visible(by, t), timeout, throwException);
     }
 
     /**
@@ -100,7 +119,7 @@ public abstract class Wait {
      * @return - returns true if element becomes visible, false otherwise
      */
     public static boolean waitForVisible(WebElement webElement, boolean throwException) {
-        return wait(Wait.by, ExpectedConditions.visibilityOf(webElement), 0, throwException);
+        return wait("visible", null, ExpectedConditions.visibilityOf(webElement), 0, throwException);
     }
 
     /**
@@ -116,10 +135,10 @@ public abstract class Wait {
      * @throws Exception - throws exception
      */
     public static boolean waitForNotVisible(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
+        By by = Elements.by(locator);
 
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Deadline.timeout(timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout));
 
         Logger.debug(String.format("Waiting for page to load; waiting for the following to not be visible: %s.\n" +
                 "Waiting for load timeout: %s milliseconds", by.toString(), waitForLoadTimeout.toMillis()));
@@ -128,7 +147,7 @@ public abstract class Wait {
         try {
             dateTimeBeforeWaitForLoad = new Date();
             waitUntilJSReady();
-            new WebDriverWait(driver, waitForLoadTimeout).until(ExpectedConditions.invisibilityOfElementLocated(by));
+            WaitEngine.until(ExpectedConditions.invisibilityOfElementLocated(by), waitForLoadTimeout);
         }
         catch (Exception e) {
             Logger.error(String.format("Failed to wait for page to load since failed to validate invisibility of %s " +
@@ -158,9 +177,7 @@ public abstract class Wait {
      * @throws Exception - throws exception
      */
     public static boolean waitForNotVisible(WebElement element, int timeout, boolean throwException) throws Exception {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
-
-        boolean visibility = wait.until(new ExpectedCondition<Boolean>() {
+        boolean visibility = WaitEngine.until(new ExpectedCondition<Boolean>() {
             private WebElement element;
 
             private ExpectedCondition<Boolean> init(WebElement element) {
@@ -176,11 +193,11 @@ public abstract class Wait {
                     return true;
                 }
             }
-        }.init(element));
+        }.init(element), Duration.ofSeconds(timeout));
 
         if(!visibility && throwException) {
             Logger.exception(String.format("Failed to wait for page to load since failed to validate invisibility of %s " +
-                    "within %d seconds.", by.toString(), timeout));
+                    "within %d seconds.", element.toString(), timeout));
         }
         return visibility;
     }
@@ -209,8 +226,8 @@ public abstract class Wait {
     }
 
     public static boolean waitForExists(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
-        return wait(by, ExpectedConditions.presenceOfElementLocated(by), timeout, throwException);
+        By by = Elements.by(locator);
+        return wait("exists", by, ExpectedConditions.presenceOfElementLocated(by), timeout, throwException);
     }
 
     /**
@@ -225,10 +242,10 @@ public abstract class Wait {
      * @return - True if page loaded successfully, false otherwise.
      */
     public static boolean waitForNotExists(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
+        By by = Elements.by(locator);
 
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Deadline.timeout(timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout));
 
         Logger.debug(String.format("Waiting for page to load; waiting for the following to not exist: %s.\n" +
                 "Waiting for load timeout: %s milliseconds", by.toString(), waitForLoadTimeout.toMillis()));
@@ -237,7 +254,7 @@ public abstract class Wait {
         try {
             dateTimeBeforeWaitForLoad = new Date();
             waitUntilJSReady();
-            new WebDriverWait(driver, waitForLoadTimeout).until(ExpectedConditions.presenceOfElementLocated(by));
+            WaitEngine.until(ExpectedConditions.presenceOfElementLocated(by), waitForLoadTimeout);
         }
         catch (Exception e) {
             Logger.error(String.format("Failed to wait for page to load since failed to validate invisibility of %s " +
@@ -266,9 +283,9 @@ public abstract class Wait {
      * @throws ElementNotInteractableException - throw
      */
     public static boolean waitForChildNotVisible(WebElement parentEl, String childLocator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(childLocator);
+        By by = Elements.by(childLocator);
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Deadline.timeout(timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout));
 
         Logger.debug(String.format("Waiting for page to load; waiting for the following to not be visible: %s.\n" +
                 "Waiting for load timeout: %s milliseconds", by.toString(), waitForLoadTimeout.toMillis()));
@@ -277,7 +294,7 @@ public abstract class Wait {
         try {
             dateTimeBeforeWaitForLoad = new Date();
             waitUntilJSReady();
-            new WebDriverWait(driver, waitForLoadTimeout).until(x -> parentEl.findElements(by).size() == 0);
+            WaitEngine.until(x -> parentEl.findElements(by).size() == 0, waitForLoadTimeout);
         }
         catch (Exception e) {
             Logger.error(String.format("Failed to wait for page to load since failed to validate invisibility of %s " +
@@ -304,7 +321,8 @@ public abstract class Wait {
      * @return - returns true if element becomes visible, false otherwise
      */
     public static boolean waitForText(WebElement webElement, String text, boolean throwException) {
-        return wait(Wait.by, ExpectedConditions.textToBePresentInElement(webElement, text), 0, throwException);
+        return wait("text", null, ExpectedConditions.textToBePresentInElement(webElement, text), t -> ObserverWaits.text(webElement, text, t),
+                    0, throwException);
     }
 
     /**
@@ -317,8 +335,9 @@ public abstract class Wait {
      * @return - returns true if element becomes visible, false otherwise
      */
     public static boolean waitForText(String locator, String text, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
-        return wait(Wait.by, ExpectedConditions.textToBePresentInElementLocated(by, text), 0, throwException);
+        By by = Elements.by(locator);
+        return wait("text", by, ExpectedConditions.textToBePresentInElementLocated(by, text), t -> ObserverWaits.text(by, text, t),
+                    0, throwException);
     }
 
     /**
@@ -343,9 +362,7 @@ public abstract class Wait {
      * @param timeout       - timeout
      */
     public static void attributeChanged(WebElement element, String attr, String expectedValue, AttributeCondition condition, int timeout) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
-
-        wait.until(new ExpectedCondition<Boolean>() {
+        ExpectedCondition<Boolean> changed = new ExpectedCondition<Boolean>() {
             private WebElement element;
             private String attr;
             private String expectedValue;
@@ -384,7 +401,9 @@ public abstract class Wait {
                         return null;
                 }
             }
-        }.init(element, attr, expectedValue, condition));
+        }.init(element, attr, expectedValue, condition);
+
+        until(changed, t -> ObserverWaits.attribute(element, attr, expectedValue, condition, t), Duration.ofSeconds(timeout), null);
     }
 
     /**
@@ -400,9 +419,9 @@ public abstract class Wait {
      */
     public static void attributeChanged(WebElement element, String attr, String expectedValue, AttributeCondition
             condition, int index, Boolean... getParent) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        WebElement refreshed = StaleElementUtils.refreshElement(element, index, getParent[0]);
 
-        wait.until(new ExpectedCondition<Boolean>() {
+        ExpectedCondition<Boolean> changed = new ExpectedCondition<Boolean>() {
             private WebElement element;
             private String attr;
             private String expectedValue;
@@ -410,7 +429,7 @@ public abstract class Wait {
 
             private ExpectedCondition<Boolean> init(WebElement element, String attr, String expectedValue,
                                                     AttributeCondition condition) {
-                this.element = StaleElementUtils.refreshElement(element, index, getParent[0]);
+                this.element = element;
                 this.attr = attr;
                 this.expectedValue = expectedValue;
                 this.condition = condition;
@@ -439,7 +458,9 @@ public abstract class Wait {
                         return null;
                 }
             }
-        }.init(element, attr, expectedValue, condition));
+        }.init(refreshed, attr, expectedValue, condition);
+
+        until(changed, t -> ObserverWaits.attribute(refreshed, attr, expectedValue, condition, t), Duration.ofSeconds(10), null);
     }
 
     @SuppressWarnings("all")
@@ -456,10 +477,10 @@ public abstract class Wait {
      */
     public static boolean waitNoMsg(ExpectedCondition condition, int timeout, boolean throwException) {
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Deadline.timeout(timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout));
 
         try {
-            new WebDriverWait(driver, waitForLoadTimeout).until(condition);
+            WaitEngine.until(condition, waitForLoadTimeout);
             waitUntilJSReady();
         }
         catch (Exception e) {
@@ -472,40 +493,144 @@ public abstract class Wait {
     }
 
     @SuppressWarnings("all")
-    private static boolean wait (By by, ExpectedCondition condition, int timeout, boolean throwException) {
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+    private static boolean wait (String kind, By by, ExpectedCondition condition, int timeout, boolean throwException) {
+        return wait(kind, by, condition, null, timeout, throwException);
+    }
+
+    /**
+     * @param kind - kind of condition (visible, clickable...), waits are timed per kind and By
+     */
+    @SuppressWarnings("all")
+    private static boolean wait (String kind, By by, ExpectedCondition condition, Function<Duration, Boolean> observer,
+                                 int timeout, boolean throwException) {
+        //Only locator waits are timed, element conditions are not stable across sessions
+        String timingKey = by != null ? kind + "|" + by : null;
+        Duration requested = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+        WaitTimings.Tuning tuning = WaitTimings.tuning(timingKey, requested);
+        Duration waitForLoadTimeout = Deadline.timeout(tuning != null ? tuning.getTimeout() : requested);
+        String target = by != null ? by.toString() : condition.toString();
 
         Logger.debug(String.format("Waiting for page to load; waiting for the following to exist: %s.\n" +
-                "Waiting for load timeout: %s milliseconds", by.toString(), waitForLoadTimeout.toMillis()));
+                "Waiting for load timeout: %s milliseconds%s", target, waitForLoadTimeout.toMillis(),
+                tuning != null ? " (adaptive: " + tuning + ")" : ""));
 
         Date dateTimeBeforeWaitForLoad;
 
         try {
             dateTimeBeforeWaitForLoad = new Date();
-            new WebDriverWait(Serenity.getDriver(), waitForLoadTimeout).until(condition);
+            until(condition, observer, waitForLoadTimeout, tuning);
         }
         catch (TimeoutException e) {
+            //Timeouts are recorded at the timeout value so that a tuned timeout grows back on slow runs
+            WaitTimings.record(timingKey, waitForLoadTimeout);
             if (throwException) {
                 Logger.error(String.format("Failed to wait for page to load since failed to validate existence of %s within %d milliseconds!",
-                        by.toString(), waitForLoadTimeout.toMillis()));
+                        target, waitForLoadTimeout.toMillis()));
                 throw e;
             }
 
-            Logger.warn(String.format("Element %s not found within %d milliseconds!", by.toString(), waitForLoadTimeout.toMillis()));
+            Logger.warn(String.format("Element %s not found within %d milliseconds!", target, waitForLoadTimeout.toMillis()));
             return false;
         }
 
         long elapsed = new Date().getTime() - dateTimeBeforeWaitForLoad.getTime();
-        Logger.debug(String.format("Page loaded; the following exists: %s. \nFound in %d milliseconds", by.toString(), elapsed));
+        WaitTimings.record(timingKey, Duration.ofMillis(elapsed));
+        Logger.debug(String.format("Page loaded; the following exists: %s. \nFound in %d milliseconds", target, elapsed));
         return true;
     }
 
+    /**
+     * Awaits for the page network to be idle: document loaded, no pending fetch, XMLHttpRequest, jQuery ajax call or
+     * short timer, and no request started or finished during the quiet period.
+     *
+     * @param quietPeriod - time without network activity required
+     * @param timeout     - time to wait
+     * @throws TimeoutException - if the network is not idle within the timeout
+     */
+    public static void waitForNetworkIdle(Duration quietPeriod, Duration timeout) {
+        waitForNetworkIdle(quietPeriod, timeout, true);
+    }
+
+    /**
+     * Awaits for the page network to be idle.
+     * It throws TimeoutException but only if throwException is true
+     *
+     * @param quietPeriod    - time without network activity required
+     * @param timeout        - time to wait
+     * @param throwException - if true, throws exception if the network is not idle within the timeout
+     * @return - true if the network is idle, false otherwise
+     */
+    public static boolean waitForNetworkIdle(Duration quietPeriod, Duration timeout, boolean throwException) {
+        Duration waitForIdleTimeout = Deadline.timeout(timeout);
+        NetworkTracker.NetworkState[] last = {null};
+
+        Date dateTimeBeforeWaitForIdle = new Date();
+        try {
+            WaitEngine.until(driver -> {
+                last[0] = NetworkTracker.query(driver);
+                return last[0].isIdle(quietPeriod);
+            }, waitForIdleTimeout);
+        }
+        catch (TimeoutException e) {
+            String message = String.format("Network not idle for %d milliseconds within %d milliseconds: %s",
+                    quietPeriod.toMillis(), waitForIdleTimeout.toMillis(), last[0]);
+            if (throwException) {
+                Logger.error(message);
+                throw new TimeoutException(message, e);
+            }
+
+            Logger.warn(message);
+            return false;
+        }
+
+        long elapsed = new Date().getTime() - dateTimeBeforeWaitForIdle.getTime();
+        Logger.debug(String.format("Network idle after %d milliseconds", elapsed));
+        return true;
+    }
+
+    /**
+     * Waits for the condition through the page observer if event driven waits are enabled, by polling otherwise or if
+     * the observer can not watch the condition
+     *
+     * @param condition - condition to poll
+     * @param observer  - observes the condition within the provided timeout, returns null if it can not
+     * @param timeout   - time to wait
+     * @param tuning    - poll intervals to use, null for the default ones
+     */
+    @SuppressWarnings(value = "try")
+    private static void until (ExpectedCondition<?> condition, Function<Duration, Boolean> observer, Duration timeout,
+                               WaitTimings.Tuning tuning) {
+        try (Deadline ignored = Deadline.start(timeout)) {
+            if (eventDriven && observer != null) {
+                Boolean met = observer.apply(Deadline.timeout(timeout));
+                if (met != null) {
+                    if (met) {
+                        return;
+                    }
+                    throw new TimeoutException(String.format("Expected condition failed: waiting for %s " +
+                            "(observed for %d milliseconds)", condition, timeout.toMillis()));
+                }
+            }
+            if (tuning != null) {
+                WaitEngine.until(condition, timeout, tuning.getInitialInterval(), tuning.getMaxInterval());
+            }
+            else {
+                WaitEngine.until(condition, timeout);
+            }
+        }
+    }
+
     /**
      * Utility method to wait for JS to fully load on page
      */
     static void waitUntilJSReady() {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-        JavascriptExecutor jsExec = (JavascriptExecutor) driver;
+        //Skip the roundtrip if the document was already found ready since the last navigation
+        WebDriver current = Drivers.current();
+        if (NavigationEpoch.isReady(current)) {
+            return;
+        }
+
+        JavascriptExecutor jsExec = (JavascriptExecutor) driver();
 
         //wait for Javascript to load
         ExpectedCondition<Boolean> jsLoad = driver -> {
@@ -527,38 +652,21 @@ public abstract class Wait {
         if (!jsReady) {
             System.out.println("JS in NOT Ready!");
             //wait for Javascript to load
-            wait.until(jsLoad);
+            WaitEngine.until(jsLoad, Duration.ofSeconds(15));
         }
+        NavigationEpoch.markReady(current);
     }
 
     /**
-     * Checks if all ajax calls are complete
+     * Checks if all ajax calls are complete: fetch, XMLHttpRequest and jQuery
      *
      * @return true if no active ajax calls
      */
     static boolean ajaxDone() throws Exception {
         try {
-
-            //below script returns either string or long value, so fetching the results conditionally to avoid type
-            // cast error
-            Object jsResponse = ((JavascriptExecutor) driver).executeScript("return jQuery.active;");
-            Logger.info("response for jQuery active : " + jsResponse);
-            long queries;
-
-            if (jsResponse instanceof Long) {
-                queries = (Long) jsResponse;
-            }
-            else if (jsResponse instanceof String) {
-                // this means either jquery is not on the current page or not working correctly
-                String response = (String) jsResponse;
-                return (response.startsWith("{\"hCode\"") || response.isEmpty());
-            }
-            else {
-                Logger.info("Unable to get num ajax calls!");
-                return true;
-            }
-
-            return queries == 0;
+            NetworkTracker.NetworkState state = NetworkTracker.query(driver());
+            Logger.info("Network state: " + state);
+            return state.getPendingRequests() == 0;
         }
         catch (Exception ex) {
             throw new Exception(ex.getMessage());
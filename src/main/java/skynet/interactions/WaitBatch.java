@@ -0,0 +1,344 @@
+package skynet.interactions;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import skynet.utils.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Set of wait conditions evaluated together.
+ * <p>
+ * On every poll, all the conditions whose locator can be evaluated in the page are checked in a single script
+ * execution; the others are checked through WebDriver. The wait returns as soon as all (or any) of the conditions are
+ * met.
+ * </p>
+ * e.g:
+ * <p>
+ * WaitBatch.all()
+ *     .visible("Login")
+ *     .notVisible("Spinner")
+ *     .textEquals("Title", "Welcome")
+ *     .attribute("Submit", "class", "disabled", Wait.AttributeCondition.NOT_CONTAINS)
+ *     .await(10, true);
+ * </p>
+ */
+public final class WaitBatch {
+    private static final String EVALUATE = "function (conditions) {" +
+            "var results = [];" +
+            "for (var i = 0; i < conditions.length; i++) {" +
+            "  var c = conditions[i], found = locate(c[1], c[2]) || [], el = found.length ? found[0] : null, met = false;" +
+            "  switch (c[0]) {" +
+            "    case 'visible': met = el !== null && isDisplayed(el); break;" +
+            "    case 'notVisible': met = el === null || !isDisplayed(el); break;" +
+            "    case 'exists': met = el !== null; break;" +
+            "    case 'textEquals': met = el !== null && textOrValue(el) === c[3]; break;" +
+            "    case 'attribute': met = el !== null && matches(attribute(el, c[4]), c[3], c[5]); break;" +
+            "  }" +
+            "  results.push(met);" +
+            "}" +
+            "return results;" +
+            "}";
+
+    private static boolean registered = false;
+
+    private final boolean all;
+    private final List<Condition> conditions = new ArrayList<>();
+
+    private WaitBatch (boolean all) {
+        this.all = all;
+    }
+
+    /**
+     * @return - batch met when all its conditions are met
+     */
+    public static WaitBatch all () {
+        return new WaitBatch(true);
+    }
+
+    /**
+     * @return - batch met when any of its conditions is met
+     */
+    public static WaitBatch any () {
+        return new WaitBatch(false);
+    }
+
+    public WaitBatch visible (String locator) throws Exception {
+        return visible(Elements.by(locator));
+    }
+
+    /**
+     * Adds a condition met when the first element matching the By is visible
+     *
+     * @param by - selenium By
+     * @return - this batch
+     */
+    public WaitBatch visible (By by) {
+        return add(new Condition("visible", by, null, null, null, ExpectedConditions.visibilityOfElementLocated(by)));
+    }
+
+    public WaitBatch notVisible (String locator) throws Exception {
+        return notVisible(Elements.by(locator));
+    }
+
+    /**
+     * Adds a condition met when no element matches the By or the first one is not visible
+     *
+     * @param by - selenium By
+     * @return - this batch
+     */
+    public WaitBatch notVisible (By by) {
+        return add(new Condition("notVisible", by, null, null, null, ExpectedConditions.invisibilityOfElementLocated(by)));
+    }
+
+    public WaitBatch exists (String locator) throws Exception {
+        return exists(Elements.by(locator));
+    }
+
+    /**
+     * Adds a condition met when an element matches the By
+     *
+     * @param by - selenium By
+     * @return - this batch
+     */
+    public WaitBatch exists (By by) {
+        return add(new Condition("exists", by, null, null, null, ExpectedConditions.presenceOfElementLocated(by)));
+    }
+
+    public WaitBatch textEquals (String locator, String text) throws Exception {
+        return textEquals(Elements.by(locator), text);
+    }
+
+    /**
+     * Adds a condition met when the text of the first element matching the By equals the provided text.
+     * The text is normalized like WebElement.getText(), whether the condition is evaluated in the page or not.
+     *
+     * @param by   - selenium By
+     * @param text - expected text
+     * @return - this batch
+     */
+    public WaitBatch textEquals (By by, String text) {
+        return add(new Condition("textEquals", by, text, null, null, ExpectedConditions.textToBe(by, text)));
+    }
+
+    public WaitBatch attribute (String locator, String attr, String expectedValue, Wait.AttributeCondition condition)
+            throws Exception {
+        return attribute(Elements.by(locator), attr, expectedValue, condition);
+    }
+
+    /**
+     * Adds a condition met when the attribute of the first element matching the By meets the attribute condition
+     *
+     * @param by            - selenium By
+     * @param attr          - attribute to use
+     * @param expectedValue - value to compare the attribute with
+     * @param condition     - AttributeCondition condition
+     * @return - this batch
+     */
+    public WaitBatch attribute (By by, String attr, String expectedValue, Wait.AttributeCondition condition) {
+        ExpectedCondition<Boolean> fallback = driver -> {
+            String actual = driver.findElement(by).getAttribute(attr);
+            return actual != null && matches(actual, expectedValue, condition);
+        };
+        return add(new Condition("attribute", by, expectedValue, attr, condition, fallback));
+    }
+
+    /**
+     * Awaits for the batch to be met within the provided timeout.
+     * It throws TimeoutException but only if throwException is true
+     *
+     * @param timeout        - seconds to wait, 10 if &lt;= 0
+     * @param throwException - if true, throws exception if the batch is not met within the timeout
+     * @return - true if the batch is met, false otherwise
+     */
+    public boolean await (int timeout, boolean throwException) {
+        Duration waitForLoadTimeout = Deadline.timeout(timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout));
+        boolean[][] last = {new boolean[conditions.size()]};
+
+        Logger.debug(String.format("Waiting for %s of %d condition(s) within %d milliseconds", all ? "all" : "any",
+                conditions.size(), waitForLoadTimeout.toMillis()));
+
+        Date dateTimeBeforeWait = new Date();
+        try {
+            WaitEngine.until(driver -> {
+                last[0] = evaluate(driver);
+                return isMet(last[0]);
+            }, waitForLoadTimeout);
+        }
+        catch (TimeoutException e) {
+            String message = String.format("Failed to wait for %s of the conditions within %d milliseconds! Not met: %s",
+                    all ? "all" : "any", waitForLoadTimeout.toMillis(), describeUnmet(last[0]));
+            if (throwException) {
+                Logger.error(message);
+                throw new TimeoutException(message, e);
+            }
+
+            Logger.warn(message);
+            return false;
+        }
+
+        long elapsed = new Date().getTime() - dateTimeBeforeWait.getTime();
+        Logger.debug(String.format("Conditions met in %d milliseconds", elapsed));
+        return true;
+    }
+
+    /**
+     * Evaluates all the conditions once
+     *
+     * @param driver - web driver
+     * @return - one result per condition, in the order they were added
+     */
+    @SuppressWarnings(value = "unchecked")
+    public boolean[] evaluate (WebDriver driver) {
+        boolean[] results = new boolean[conditions.size()];
+        boolean[] evaluated = new boolean[conditions.size()];
+
+        List<Object> scripted = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            Object[] arguments = conditions.get(i).scriptArguments();
+            if (arguments != null) {
+                scripted.add(Arrays.asList(arguments));
+                indexes.add(i);
+            }
+        }
+
+        if (!scripted.isEmpty() && register()) {
+            try {
+                List<Object> scriptResults = (List<Object>) PageScripts.call(driver, "evaluateConditions", scripted);
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = Boolean.TRUE.equals(scriptResults.get(i));
+                    evaluated[indexes.get(i)] = true;
+                }
+            } catch (StaleElementReferenceException e) {
+                throw e;
+            } catch (WebDriverException | ClassCastException e) {
+                Logger.debug("Unable to evaluate the conditions through script, falling back to WebDriver: " + e.getMessage());
+            }
+        }
+
+        for (int i = 0; i < conditions.size(); i++) {
+            if (!evaluated[i]) {
+                results[i] = conditions.get(i).evaluate(driver);
+            }
+        }
+        return results;
+    }
+
+    public int size () {
+        return conditions.size();
+    }
+
+    private WaitBatch add (Condition condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    private boolean isMet (boolean[] results) {
+        for (boolean result : results) {
+            if (result != all) {
+                return !all;
+            }
+        }
+        return all;
+    }
+
+    private String describeUnmet (boolean[] results) {
+        List<String> unmet = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) {
+                unmet.add(conditions.get(i).toString());
+            }
+        }
+        return unmet.toString();
+    }
+
+    private static boolean matches (String actual, String expected, Wait.AttributeCondition condition) {
+        switch (condition) {
+            case EQUALS:
+                return actual.equals(expected);
+            case NOT_EQUALS:
+                return !actual.equals(expected);
+            case CONTAINS:
+                return actual.contains(expected);
+            case NOT_CONTAINS:
+                return !actual.contains(expected);
+            default:
+                return false;
+        }
+    }
+
+    private static synchronized boolean register () {
+        if (!registered) {
+            String atom = ScriptLocators.getIsDisplayedAtom();
+            if (atom == null) {
+                return false;
+            }
+            PageScripts.register("evaluateConditions", ScriptLocators.withIsDisplayed(atom, ScriptLocators.CONDITION_HELPERS, EVALUATE));
+            registered = true;
+        }
+        return true;
+    }
+
+    private static final class Condition {
+        private final String kind;
+        private final By by;
+        private final String expected;
+        private final String attr;
+        private final Wait.AttributeCondition attributeCondition;
+        private final ExpectedCondition<?> fallback;
+
+        private Condition (String kind, By by, String expected, String attr, Wait.AttributeCondition attributeCondition,
+                           ExpectedCondition<?> fallback) {
+            this.kind = kind;
+            this.by = by;
+            this.expected = expected;
+            this.attr = attr;
+            this.attributeCondition = attributeCondition;
+            this.fallback = fallback;
+        }
+
+        /**
+         * @return - [kind, using, value, expected, attr, condition] or null if the By can not be located through a script
+         */
+        private Object[] scriptArguments () {
+            Object[] parameters = ScriptLocators.parameters(by);
+            if (parameters == null) {
+                return null;
+            }
+            return new Object[]{kind, parameters[0], parameters[1], expected, attr,
+                    attributeCondition == null ? null : attributeCondition.name()};
+        }
+
+        private boolean evaluate (WebDriver driver) {
+            try {
+                Object value = fallback.apply(driver);
+                return value != null && !Boolean.FALSE.equals(value);
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public String toString () {
+            switch (kind) {
+                case "textEquals":
+                    return String.format("text of %s equals '%s'", by, expected);
+                case "attribute":
+                    return String.format("%s of %s %s '%s'", attr, by, attributeCondition.name().toLowerCase(), expected);
+                default:
+                    return kind + " " + by;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package skynet.interactions;
+
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import skynet.drivers.Drivers;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Polls a condition until it is met, with adaptive backoff.
+ * <p>
+ * The condition is checked right away, then after the initial interval, and the interval doubles after each miss up to
+ * the maximum interval. Conditions met quickly are detected within a few milliseconds, while long waits cost fewer
+ * remote calls than a fixed polling interval.
+ * </p>
+ * A condition is met when it returns a value other than null and false. NotFoundException and
+ * StaleElementReferenceException thrown by the condition are ignored, like WebDriverWait does.
+ * The timeout is shortened to the active Deadline, if any.
+ * <p>
+ * e.g:
+ * WebElement el = WaitEngine.until(ExpectedConditions.visibilityOfElementLocated(by), Duration.ofSeconds(10));
+ * </p>
+ */
+public abstract class WaitEngine {
+    private static volatile long initialIntervalNanos = TimeUnit.MILLISECONDS.toNanos(5);
+    private static volatile long maxIntervalNanos = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Waits until the condition, evaluated against the current driver, is met
+     *
+     * @param condition - condition, e.g. an ExpectedCondition
+     * @param timeout   - time to wait
+     * @return - the value returned by the condition
+     * @throws TimeoutException - if the condition is not met within the timeout
+     */
+    public static <T> T until (Function<? super WebDriver, T> condition, Duration timeout) {
+        return until(condition, timeout, initialIntervalNanos, maxIntervalNanos);
+    }
+
+    /**
+     * Waits until the condition, evaluated against the current driver, is met, with specific polling intervals
+     *
+     * @param condition       - condition, e.g. an ExpectedCondition
+     * @param timeout         - time to wait
+     * @param initialInterval - interval between the first two checks
+     * @param maxInterval     - interval the backoff is capped at
+     * @return - the value returned by the condition
+     * @throws TimeoutException - if the condition is not met within the timeout
+     */
+    public static <T> T until (Function<? super WebDriver, T> condition, Duration timeout, Duration initialInterval,
+                               Duration maxInterval) {
+        return until(condition, timeout, initialInterval.toNanos(), Math.max(initialInterval.toNanos(), maxInterval.toNanos()));
+    }
+
+    private static <T> T until (Function<? super WebDriver, T> condition, Duration timeout, long initial, long max) {
+        try {
+            return poll(() -> condition.apply(Drivers.get()), timeout, condition, initial, max);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebDriverException(e);
+        }
+    }
+
+    /**
+     * Waits until the condition is met
+     *
+     * @param condition - condition, exceptions other than NotFoundException and StaleElementReferenceException are thrown
+     * @param timeout   - time to wait
+     * @return - the value returned by the condition
+     * @throws TimeoutException - if the condition is not met within the timeout
+     * @throws Exception        - thrown by the condition
+     */
+    public static <T> T until (Callable<T> condition, Duration timeout) throws Exception {
+        return poll(condition, timeout, condition, initialIntervalNanos, maxIntervalNanos);
+    }
+
+    /**
+     * Sets the interval between the first two checks and the interval the backoff is capped at
+     *
+     * @param initial - first interval
+     * @param max     - maximum interval
+     */
+    public static void setPolling (Duration initial, Duration max) {
+        if (initial.isNegative() || initial.isZero() || max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException("Polling intervals must be greater than 0 and initial <= max");
+        }
+        initialIntervalNanos = initial.toNanos();
+        maxIntervalNanos = max.toNanos();
+    }
+
+    public static Duration getInitialInterval () {
+        return Duration.ofNanos(initialIntervalNanos);
+    }
+
+    public static Duration getMaxInterval () {
+        return Duration.ofNanos(maxIntervalNanos);
+    }
+
+    private static <T> T poll (Callable<T> condition, Duration timeout, Object description, long initial, long max)
+            throws Exception {
+        Duration effective = Deadline.timeout(timeout);
+        long start = System.nanoTime();
+        long end = start + effective.toNanos();
+        long interval = Math.max(1, initial);
+        RuntimeException lastError = null;
+
+        while (true) {
+            try {
+                T value = condition.call();
+                if (value != null && !Boolean.FALSE.equals(value)) {
+                    return value;
+                }
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                lastError = e;
+            }
+
+            long left = end - System.nanoTime();
+            if (left <= 0) {
+                throw new TimeoutException(String.format("Expected condition failed: waiting for %s " +
+                        "(tried for %d millisecond(s) with adaptive polling)", description,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)), lastError);
+            }
+
+            LockSupport.parkNanos(Math.min(interval, left));
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException(new InterruptedException("Interrupted while waiting for " + description));
+            }
+            interval = Math.min(interval * 2, max);
+        }
+    }
+}
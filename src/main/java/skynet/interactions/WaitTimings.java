@@ -0,0 +1,329 @@
+package skynet.interactions;
+
+import skynet.utils.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how long each locator took to satisfy its wait condition, across runs.
+ * <p>
+ * Waits are keyed by condition kind and locator (e.g. "visible|By.id: name"), so that a fast existence check does not
+ * tune a slower visibility or clickability wait on the same locator.
+ * When recording is on, every locator wait appends one line (key, milliseconds) to a local file,
+ * .skynet/wait-timings.tsv by default. The file is read once, on first use, and rewritten with the most recent samples
+ * only when it grows too big. Timeouts are recorded at the timeout value, so that the percentiles of a locator that
+ * became slower grow with it instead of only reflecting the successful waits.
+ * </p>
+ * In adaptive mode, locators with enough samples wait with a timeout and poll intervals derived from their own
+ * latency. The caller's timeout is an upper bound, the tuned timeout is never longer:
+ * <ul>
+ * <li>timeout: p99 x 3, between 1 and 60 seconds, at most the caller's timeout</li>
+ * <li>first poll interval: p50 / 4, max poll interval: p99 / 10, both between 5 and 500 milliseconds</li>
+ * </ul>
+ */
+public abstract class WaitTimings {
+    private static final int MAX_SAMPLES = 200;
+    private static final int MIN_SAMPLES = 20;
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+    private static final Duration MIN_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration MAX_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(5);
+    private static final Duration MAX_INTERVAL = Duration.ofMillis(500);
+
+    private static final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private static volatile Path file = Paths.get(".skynet", "wait-timings.tsv");
+    private static volatile boolean recording = false;
+    private static volatile boolean adaptive = false;
+    private static boolean loaded = false;
+    private static BufferedWriter writer = null;
+
+    /**
+     * Records a wait
+     *
+     * @param key     - wait key, condition kind and By description
+     * @param elapsed - time the condition took to be met, or the timeout if it was not met
+     */
+    public static void record (String key, Duration elapsed) {
+        if (!recording || key == null) {
+            return;
+        }
+
+        String sanitized = sanitize(key);
+        long millis = elapsed.toMillis();
+        load();
+        samples.computeIfAbsent(sanitized, k -> new Samples()).add(millis);
+        append(sanitized, millis);
+    }
+
+    /**
+     * Gets the wait tuning of the locator, if adaptive mode is on and enough samples were recorded
+     *
+     * @param key   - locator key
+     * @param limit - timeout requested by the caller, the tuned timeout never exceeds it
+     * @return - tuning or null
+     */
+    public static Tuning tuning (String key, Duration limit) {
+        if (!adaptive || key == null) {
+            return null;
+        }
+
+        load();
+        Samples recorded = samples.get(sanitize(key));
+        long[] sorted = recorded == null ? null : recorded.sorted();
+        if (sorted == null || sorted.length < MIN_SAMPLES) {
+            return null;
+        }
+
+        Duration p50 = Duration.ofMillis(percentile(sorted, 50));
+        Duration p99 = Duration.ofMillis(percentile(sorted, 99));
+        Duration initial = clamp(p50.dividedBy(4), MIN_INTERVAL, MAX_INTERVAL);
+        Duration timeout = clamp(p99.multipliedBy(3), MIN_TIMEOUT, MAX_TIMEOUT);
+        if (limit != null && timeout.compareTo(limit) > 0) {
+            timeout = limit;
+        }
+        return new Tuning(timeout, initial, clamp(p99.dividedBy(10), initial, MAX_INTERVAL));
+    }
+
+    /**
+     * @param key - locator key
+     * @return - 99th percentile of the recorded timings or null if there are no samples
+     */
+    public static Duration p99 (String key) {
+        load();
+        Samples recorded = samples.get(sanitize(key));
+        long[] sorted = recorded == null ? null : recorded.sorted();
+        return sorted == null || sorted.length == 0 ? null : Duration.ofMillis(percentile(sorted, 99));
+    }
+
+    public static boolean isAdaptive () {
+        return adaptive;
+    }
+
+    /**
+     * Enables the adaptive mode: waits on locators with enough history use their own timeout and poll intervals.
+     * Enabling it also turns recording on.
+     *
+     * @param enabled - true to tune the waits from the recorded timings
+     */
+    public static void setAdaptive (boolean enabled) {
+        adaptive = enabled;
+        if (enabled) {
+            recording = true;
+        }
+    }
+
+    public static boolean isRecording () {
+        return recording;
+    }
+
+    /**
+     * Turns recording of successful wait timings on or off
+     *
+     * @param enabled - true to append the timings to the timings file
+     */
+    public static void setRecording (boolean enabled) {
+        recording = enabled;
+    }
+
+    public static Path getFile () {
+        return file;
+    }
+
+    /**
+     * Sets the file the timings are stored in and reloads them from it
+     *
+     * @param path - timings file
+     */
+    public static synchronized void setFile (Path path) {
+        closeWriter();
+        file = path;
+        samples.clear();
+        loaded = false;
+    }
+
+    /**
+     * Reads the timings file once, compacting it if it grew too big
+     */
+    private static synchronized void load () {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf('\t');
+                if (separator <= 0) {
+                    continue;
+                }
+                try {
+                    long millis = Long.parseLong(line.substring(separator + 1).trim());
+                    samples.computeIfAbsent(line.substring(0, separator), k -> new Samples()).add(millis);
+                    lines++;
+                } catch (NumberFormatException e) {
+                    Logger.debug("Skipping malformed wait timing: " + line);
+                }
+            }
+        } catch (IOException e) {
+            Logger.warn("Unable to read wait timings from " + file + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            if (Files.size(file) > MAX_FILE_SIZE) {
+                compact();
+                Logger.debug(String.format("Wait timings compacted from %d to %d samples", lines, count()));
+            }
+        } catch (IOException e) {
+            Logger.warn("Unable to compact wait timings in " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the file with the samples kept in memory
+     */
+    private static void compact () throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+                for (long millis : entry.getValue().all()) {
+                    out.write(entry.getKey() + '\t' + millis);
+                    out.newLine();
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static synchronized void append (String key, long millis) {
+        try {
+            if (writer == null) {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            }
+            writer.write(key + '\t' + millis);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            Logger.warn("Unable to record wait timing in " + file + ", recording disabled: " + e.getMessage());
+            recording = false;
+            closeWriter();
+        }
+    }
+
+    private static synchronized void closeWriter () {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Logger.debug("Unable to close wait timings file: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    private static int count () {
+        int count = 0;
+        for (Samples recorded : samples.values()) {
+            count += recorded.all().length;
+        }
+        return count;
+    }
+
+    private static String sanitize (String key) {
+        return key.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static long percentile (long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static Duration clamp (Duration value, Duration min, Duration max) {
+        return value.compareTo(min) < 0 ? min : value.compareTo(max) > 0 ? max : value;
+    }
+
+    /**
+     * Timeout and poll intervals derived from the recorded timings of a locator
+     */
+    public static final class Tuning {
+        private final Duration timeout;
+        private final Duration initialInterval;
+        private final Duration maxInterval;
+
+        private Tuning (Duration timeout, Duration initialInterval, Duration maxInterval) {
+            this.timeout = timeout;
+            this.initialInterval = initialInterval;
+            this.maxInterval = maxInterval;
+        }
+
+        public Duration getTimeout () {
+            return timeout;
+        }
+
+        public Duration getInitialInterval () {
+            return initialInterval;
+        }
+
+        public Duration getMaxInterval () {
+            return maxInterval;
+        }
+
+        @Override
+        public String toString () {
+            return String.format("timeout %d ms, polling %d-%d ms", timeout.toMillis(), initialInterval.toMillis(),
+                    maxInterval.toMillis());
+        }
+    }
+
+    /**
+     * Most recent samples of a locator, in a ring buffer
+     */
+    private static final class Samples {
+        private final long[] values = new long[MAX_SAMPLES];
+        private int size = 0;
+        private int next = 0;
+
+        private synchronized void add (long millis) {
+            values[next] = millis;
+            next = (next + 1) % MAX_SAMPLES;
+            size = Math.min(size + 1, MAX_SAMPLES);
+        }
+
+        private synchronized long[] all () {
+            long[] copy = new long[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = values[(next - size + i + MAX_SAMPLES) % MAX_SAMPLES];
+            }
+            return copy;
+        }
+
+        private long[] sorted () {
+            long[] copy = all();
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
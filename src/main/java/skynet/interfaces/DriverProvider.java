@@ -0,0 +1,13 @@
+package skynet.interfaces;
+
+import org.openqa.selenium.WebDriver;
+
+public interface DriverProvider {
+    /**
+     * Gets the driver the calling thread should use.
+     * It is called on every interaction, so implementations must be cheap and thread-safe.
+     *
+     * @return - web driver
+     */
+    WebDriver getDriver();
+}
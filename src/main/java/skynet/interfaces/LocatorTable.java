@@ -0,0 +1,26 @@
+package skynet.interfaces;
+
+import java.util.List;
+import java.util.Map;
+
+public interface LocatorTable {
+    /**
+     * @return - fully qualified name of the repository class this table was generated for
+     */
+    String repository();
+
+    /**
+     * @return - unmodifiable map of element name to [by, selector]
+     */
+    Map<String, List<String>> getAll();
+
+    /**
+     * A repository can be made of several tables (one per annotated enum). The generated tables are used instead of
+     * the repository's getAll() only if all the tables of the repository are complete.
+     *
+     * @return - true if the repository has no repository enum without a generated table
+     */
+    default boolean isComplete() {
+        return false;
+    }
+}
@@ -0,0 +1,352 @@
+package skynet.processors;
+
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import skynet.annotations.LocatorRepository;
+import skynet.interactions.LocatorStrategy;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a LocatorTable for every enum annotated with &#64;LocatorRepository.
+ * <p>
+ * The first two arguments of every enum constant are read from the source (locator strategy and selector), the
+ * strategy is validated against LocatorStrategy and a class holding a static, unmodifiable map is generated next to
+ * the enum. Generated tables are registered in META-INF/services/skynet.interfaces.LocatorTable so LocatorRegistry
+ * can serve them without instantiating the repository at runtime.
+ * </p>
+ */
+@SupportedAnnotationTypes("skynet.annotations.LocatorRepository")
+public class LocatorRepositoryProcessor extends AbstractProcessor {
+    private static final String REPOSITORY_INTERFACE = "skynet.interfaces.GenericEnumRepositoryInterface";
+    private static final String TABLE_INTERFACE = "skynet.interfaces.LocatorTable";
+    private static final String TABLE_SUFFIX = "Locators";
+    private static final String SERVICE_FILE = "META-INF/services/" + TABLE_INTERFACE;
+
+    private final Set<String> generatedTables = new TreeSet<>();
+    private Trees trees;
+
+    @Override
+    public synchronized void init (ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Locator tables can not be generated: the compiler does not expose source trees.");
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion () {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process (Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (trees != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(LocatorRepository.class)) {
+                processRepository(element);
+            }
+        }
+
+        if (roundEnv.processingOver() && !generatedTables.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    /**
+     * Validates the annotated enum and generates its locator table
+     *
+     * @param element - annotated element
+     */
+    private void processRepository (Element element) {
+        if (element.getKind() != ElementKind.ENUM) {
+            error(element, "@LocatorRepository can only be used on enums.");
+            return;
+        }
+
+        TypeElement repositoryEnum = (TypeElement) element;
+        TypeElement repositoryInterface = processingEnv.getElementUtils().getTypeElement(REPOSITORY_INTERFACE);
+        if (repositoryInterface != null
+                && !processingEnv.getTypeUtils().isAssignable(repositoryEnum.asType(), repositoryInterface.asType())) {
+            error(element, "@LocatorRepository enum must implement " + REPOSITORY_INTERFACE + ".");
+            return;
+        }
+
+        Map<String, String[]> locators = new LinkedHashMap<>();
+        boolean valid = true;
+        for (Element enclosed : repositoryEnum.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.ENUM_CONSTANT) {
+                continue;
+            }
+
+            String[] locator = readLocator((VariableElement) enclosed);
+            if (locator == null) {
+                valid = false;
+                continue;
+            }
+
+            if (!LocatorStrategy.isValid(locator[0])) {
+                error(enclosed, String.format("Not a valid locator strategy: '%s'.", locator[0]));
+                valid = false;
+                continue;
+            }
+            locators.put(enclosed.getSimpleName().toString(), locator);
+        }
+
+        if (valid) {
+            String repositoryName = getRepositoryName(repositoryEnum);
+            writeTable(repositoryEnum, repositoryName, locators, isComplete(repositoryEnum, repositoryName));
+        }
+    }
+
+    /**
+     * Reads the locator strategy and selector of an enum constant from its source
+     *
+     * @param constant - enum constant
+     * @return - [by, selector] or null if they are not compile-time strings
+     */
+    private String[] readLocator (VariableElement constant) {
+        TreePath path = trees.getPath(constant);
+        Tree tree = path == null ? null : path.getLeaf();
+        if (!(tree instanceof VariableTree) || !(((VariableTree) tree).getInitializer() instanceof NewClassTree)) {
+            error(constant, "Unable to read the locator of this constant.");
+            return null;
+        }
+
+        List<? extends ExpressionTree> arguments = ((NewClassTree) ((VariableTree) tree).getInitializer()).getArguments();
+        if (arguments.size() < 2) {
+            error(constant, "Repository constants must provide a locator strategy and a selector, e.g. Frame(\"id\", \"selector\").");
+            return null;
+        }
+
+        String[] locator = new String[2];
+        for (int i = 0; i < locator.length; i++) {
+            locator[i] = getConstantString(path, arguments.get(i));
+            if (locator[i] == null) {
+                error(constant, "Locator strategy and selector must be compile-time string constants.");
+                return null;
+            }
+        }
+        return locator;
+    }
+
+    /**
+     * Gets the value of a string literal or of a reference to a string constant
+     *
+     * @param parent     - path of the enum constant
+     * @param expression - argument expression
+     * @return - string value or null if the expression is not a compile-time string
+     */
+    private String getConstantString (TreePath parent, ExpressionTree expression) {
+        if (expression instanceof LiteralTree) {
+            Object value = ((LiteralTree) expression).getValue();
+            return value instanceof String ? (String) value : null;
+        }
+
+        TreePath path = TreePath.getPath(parent.getCompilationUnit(), expression);
+        Element element = path == null ? null : trees.getElement(path);
+        if (element instanceof VariableElement) {
+            Object value = ((VariableElement) element).getConstantValue();
+            return value instanceof String ? (String) value : null;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the repository class name the table is registered for
+     *
+     * @param repositoryEnum - repository enum
+     * @return - binary name of the repository class
+     */
+    private String getRepositoryName (TypeElement repositoryEnum) {
+        String repository = repositoryEnum.getAnnotation(LocatorRepository.class).repository();
+        if (!repository.isEmpty()) {
+            return repository;
+        }
+
+        Element enclosing = repositoryEnum.getEnclosingElement();
+        TypeElement repositoryClass = enclosing instanceof TypeElement ? (TypeElement) enclosing : repositoryEnum;
+        return processingEnv.getElementUtils().getBinaryName(repositoryClass).toString();
+    }
+
+    /**
+     * Checks whether every repository enum of the repository class gets a table registered for the same repository,
+     * i.e. whether the generated tables hold all the locators getAll() would return
+     *
+     * @param repositoryEnum - repository enum
+     * @param repositoryName - binary name of the repository class
+     * @return - false if the repository may hold locators the generated tables do not have
+     */
+    private boolean isComplete (TypeElement repositoryEnum, String repositoryName) {
+        Element enclosing = repositoryEnum.getEnclosingElement();
+        TypeElement repositoryClass = enclosing instanceof TypeElement ? (TypeElement) enclosing : repositoryEnum;
+        if (!processingEnv.getElementUtils().getBinaryName(repositoryClass).contentEquals(repositoryName)) {
+            //registered for another class, its other enums are unknown
+            return false;
+        }
+        if (repositoryClass == repositoryEnum) {
+            return true;
+        }
+
+        TypeElement repositoryInterface = processingEnv.getElementUtils().getTypeElement(REPOSITORY_INTERFACE);
+        for (Element sibling : repositoryClass.getEnclosedElements()) {
+            if (sibling.getKind() != ElementKind.ENUM) {
+                continue;
+            }
+            boolean isRepository = repositoryInterface == null
+                    || processingEnv.getTypeUtils().isAssignable(sibling.asType(), repositoryInterface.asType());
+            if (isRepository && (sibling.getAnnotation(LocatorRepository.class) == null
+                    || !getRepositoryName((TypeElement) sibling).equals(repositoryName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the locator table source next to the repository enum
+     *
+     * @param repositoryEnum - repository enum
+     * @param repositoryName - binary name of the repository class
+     * @param locators       - element name to [by, selector]
+     * @param complete       - whether all the repository enums of the repository get a table
+     */
+    private void writeTable (TypeElement repositoryEnum, String repositoryName, Map<String, String[]> locators,
+                             boolean complete) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(repositoryEnum);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(repositoryEnum).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .replace('$', '_') + TABLE_SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("import java.util.Arrays;\n")
+           .append("import java.util.Collections;\n")
+           .append("import java.util.HashMap;\n")
+           .append("import java.util.List;\n")
+           .append("import java.util.Map;\n\n")
+           .append("/**\n * Generated by ").append(getClass().getName()).append(" from ")
+           .append(repositoryEnum.getQualifiedName()).append(". Do not edit.\n */\n")
+           .append("public final class ").append(simpleName).append(" implements ").append(TABLE_INTERFACE).append(" {\n")
+           .append("    private static final Map<String, List<String>> LOCATORS;\n\n")
+           .append("    static {\n")
+           .append("        Map<String, List<String>> locators = new HashMap<>(").append(Math.max(16, locators.size() * 2)).append(");\n");
+        for (Map.Entry<String, String[]> entry : locators.entrySet()) {
+            src.append("        locators.put(").append(literal(entry.getKey()))
+               .append(", Collections.unmodifiableList(Arrays.asList(")
+               .append(literal(entry.getValue()[0])).append(", ").append(literal(entry.getValue()[1])).append(")));\n");
+        }
+        src.append("        LOCATORS = Collections.unmodifiableMap(locators);\n")
+           .append("    }\n\n")
+           .append("    @Override\n")
+           .append("    public String repository() {\n")
+           .append("        return ").append(literal(repositoryName)).append(";\n")
+           .append("    }\n\n")
+           .append("    @Override\n")
+           .append("    public Map<String, List<String>> getAll() {\n")
+           .append("        return LOCATORS;\n")
+           .append("    }\n\n")
+           .append("    @Override\n")
+           .append("    public boolean isComplete() {\n")
+           .append("        return ").append(complete).append(";\n")
+           .append("    }\n")
+           .append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, repositoryEnum);
+            try (Writer writer = file.openWriter()) {
+                writer.write(src.toString());
+            }
+            generatedTables.add(qualifiedName);
+        } catch (IOException e) {
+            error(repositoryEnum, "Unable to write locator table " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers all the generated tables as LocatorTable services
+     */
+    private void writeServiceFile () {
+        Set<String> tables = new TreeSet<>(readServiceFile());
+        tables.addAll(generatedTables);
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String table : tables) {
+                    writer.write(table);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to register locator tables: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the tables registered by a previous compilation, so that an incremental build keeps the tables of the
+     * repositories it does not recompile. Tables whose class no longer exists are dropped.
+     *
+     * @return - binary names of the tables still available
+     */
+    private Set<String> readServiceFile () {
+        Set<String> tables = new TreeSet<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(file.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    String table = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                    if (!table.isEmpty() && processingEnv.getElementUtils().getTypeElement(table.replace('$', '.')) != null) {
+                        tables.add(table);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            //no service file yet
+        }
+        return tables;
+    }
+
+    private String literal (String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private void error (Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
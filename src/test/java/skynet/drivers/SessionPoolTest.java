@@ -0,0 +1,130 @@
+package skynet.drivers;
+
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SessionPoolTest {
+
+    @Test
+    public void sessionSurvivesLeaseReleaseCyclesWithNavigations () {
+        AtomicInteger launches = new AtomicInteger();
+        try (SessionPool pool = new SessionPool(() -> {
+            launches.incrementAndGet();
+            return StandInBrowser.create();
+        }, 1).start()) {
+            WebDriver first = pool.lease(Duration.ofSeconds(5));
+            first.get("https://example.com/login");
+            first.get("https://example.com/home");
+            first.get("https://other.example.org/");
+            pool.release(first);
+
+            WebDriver second = pool.lease(Duration.ofSeconds(5));
+            assertSame(first, second);
+            assertEquals("about:blank", second.getCurrentUrl());
+            second.get("https://example.com/login");
+            second.get("https://example.com/settings");
+            pool.release(second);
+
+            assertSame(first, pool.lease(Duration.ofSeconds(5)));
+            assertEquals(1, launches.get());
+            assertEquals(1, first.getWindowHandles().size());
+        }
+    }
+
+    /**
+     * Browser stand-in keeping windows and their history, enough for the pool to lease and reset it
+     */
+    private static final class StandInBrowser {
+        private final Map<String, List<String>> windows = new LinkedHashMap<>();
+        private String current;
+        private int handles = 0;
+        private boolean quit = false;
+
+        private static WebDriver create () {
+            StandInBrowser browser = new StandInBrowser();
+            browser.current = browser.open();
+            return (WebDriver) Proxy.newProxyInstance(StandInBrowser.class.getClassLoader(),
+                    new Class<?>[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                        browser.checkAlive();
+                        switch (method.getName()) {
+                            case "get":
+                                browser.windows.get(browser.current).add((String) args[0]);
+                                return null;
+                            case "getCurrentUrl":
+                                List<String> history = browser.windows.get(browser.current);
+                                return history.get(history.size() - 1);
+                            case "getWindowHandle":
+                                return browser.current;
+                            case "getWindowHandles":
+                                return new LinkedHashSet<>(browser.windows.keySet());
+                            case "close":
+                                browser.windows.remove(browser.current);
+                                return null;
+                            case "quit":
+                                browser.quit = true;
+                                return null;
+                            case "executeScript":
+                                return null;
+                            case "switchTo":
+                                return browser.targetLocator(proxy);
+                            case "manage":
+                                return Proxy.newProxyInstance(StandInBrowser.class.getClassLoader(),
+                                        new Class<?>[]{WebDriver.Options.class}, (p, m, a) -> null);
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private String open () {
+            String handle = "window-" + (++handles);
+            List<String> history = new ArrayList<>();
+            history.add("about:blank");
+            windows.put(handle, history);
+            return handle;
+        }
+
+        private Object targetLocator (Object driver) {
+            return Proxy.newProxyInstance(StandInBrowser.class.getClassLoader(),
+                    new Class<?>[]{WebDriver.TargetLocator.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "window":
+                                if (!windows.containsKey((String) args[0])) {
+                                    throw new WebDriverException("No such window: " + args[0]);
+                                }
+                                current = (String) args[0];
+                                return driver;
+                            case "newWindow":
+                                current = open();
+                                return driver;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private void checkAlive () {
+            if (quit) {
+                throw new WebDriverException("Session is quit");
+            }
+        }
+    }
+}